@@ -0,0 +1,140 @@
+package com.microdonation.benchmark;
+
+import com.microdonation.MicroDonationApplication;
+import com.microdonation.service.CampaignStatsService;
+import com.microdonation.service.WalletService;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Boots the application once per trial against an embedded H2 database and seeds
+ * it with a configurable number of users, campaigns and donations.
+ *
+ * Override the sizes with -p users=... -p campaigns=... -p donations=...
+ * the request-handling mode with -p virtualThreads=false, the campaign counter
+ * with -p counterMode=locking (or striped) and group commit with -p groupCommit=true.
+ */
+@State(Scope.Benchmark)
+public class BenchmarkContext {
+
+    private static final int INSERT_BATCH = 1_000;
+    private static final int DONATION_ID_ALLOCATION_SIZE = 50;
+
+    @Param("1000")
+    public int users;
+
+    @Param("100")
+    public int campaigns;
+
+    @Param("100000")
+    public int donations;
+
+    @Param("true")
+    public boolean virtualThreads;
+
+    @Param("direct")
+    public String counterMode;
+
+    @Param("false")
+    public boolean groupCommit;
+
+    private ConfigurableApplicationContext context;
+
+    @Setup(Level.Trial)
+    public void start() {
+        context = new SpringApplicationBuilder(MicroDonationApplication.class)
+                .profiles("benchmark")
+                // Passed as arguments, since default properties lose to application.properties
+                .run("--spring.threads.virtual.enabled=" + virtualThreads,
+                        "--campaign.raised-amount.counter-mode=" + counterMode,
+                        "--donation.group-commit.enabled=" + groupCommit);
+        seed(context.getBean(JdbcTemplate.class));
+        context.getBean(CampaignStatsService.class).rebuildStats();
+        context.getBean(WalletService.class).openMissingWallets();
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() {
+        context.close();
+    }
+
+    public <T> T getBean(Class<T> type) {
+        return context.getBean(type);
+    }
+
+    /**
+     * Port the embedded web server listens on (random, see server.port=0)
+     */
+    public int getServerPort() {
+        return context.getEnvironment().getRequiredProperty("local.server.port", Integer.class);
+    }
+
+    /**
+     * Id of a seeded user or campaign, picked uniformly
+     */
+    public long randomUserId(SplittableRandom random) {
+        return random.nextInt(users) + 1;
+    }
+
+    public long randomCampaignId(SplittableRandom random) {
+        return random.nextInt(campaigns) + 1;
+    }
+
+    private void seed(JdbcTemplate jdbc) {
+        LocalDateTime now = LocalDateTime.now();
+        SplittableRandom random = new SplittableRandom(42);
+
+        List<Object[]> rows = new ArrayList<>();
+        for (int i = 1; i <= users; i++) {
+            rows.add(new Object[]{i, "Donor " + i, "donor" + i + "@bench.local", "9000000000",
+                    "{noop}password", "USER", new BigDecimal("10000000.00"), Timestamp.valueOf(now)});
+        }
+        jdbc.batchUpdate("INSERT INTO users (user_id, name, email, contact_no, password, role, wallet_balance, join_date) " +
+                "VALUES (?, ?, ?, ?, ?, ?, ?, ?)", rows);
+        jdbc.execute("ALTER TABLE users ALTER COLUMN user_id RESTART WITH " + (users + 1));
+
+        rows.clear();
+        for (int i = 1; i <= campaigns; i++) {
+            rows.add(new Object[]{i, "Benchmark campaign " + i, "Seeded campaign used by the JMH benchmarks",
+                    new BigDecimal("99999999.00"), BigDecimal.ZERO, Date.valueOf(LocalDate.now().minusDays(30)),
+                    Date.valueOf(LocalDate.now().plusYears(1)), "ACTIVE", Timestamp.valueOf(now.minusDays(30)),
+                    (i % users) + 1});
+        }
+        jdbc.batchUpdate("INSERT INTO campaigns (campaign_id, title, description, goal_amount, raised_amount, " +
+                "start_date, end_date, status, created_at, created_by) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)", rows);
+        jdbc.execute("ALTER TABLE campaigns ALTER COLUMN campaign_id RESTART WITH " + (campaigns + 1));
+
+        rows.clear();
+        for (int i = 1; i <= donations; i++) {
+            rows.add(new Object[]{i, random.nextInt(users) + 1, random.nextInt(campaigns) + 1,
+                    BigDecimal.valueOf(random.nextInt(1, 500)), Timestamp.valueOf(now.minusSeconds(donations - i)),
+                    "PAID", "UPI", "SEED" + i});
+            if (rows.size() == INSERT_BATCH || i == donations) {
+                jdbc.batchUpdate("INSERT INTO donations (donation_id, user_id, campaign_id, amount, donation_date, " +
+                        "payment_status, payment_mode, transaction_id) VALUES (?, ?, ?, ?, ?, ?, ?, ?)", rows);
+                rows.clear();
+            }
+        }
+        // Pooled optimizer hands out (value - allocationSize, value], so leave a full block of headroom
+        jdbc.execute("ALTER SEQUENCE donation_seq RESTART WITH " + (donations + DONATION_ID_ALLOCATION_SIZE));
+
+        jdbc.update("UPDATE campaigns c SET raised_amount = COALESCE((SELECT SUM(d.amount) FROM donations d " +
+                "WHERE d.campaign_id = c.campaign_id AND d.payment_status = 'PAID'), 0)");
+    }
+}
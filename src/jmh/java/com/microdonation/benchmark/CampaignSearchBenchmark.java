@@ -0,0 +1,102 @@
+package com.microdonation.benchmark;
+
+import com.microdonation.service.CampaignSearchIndex;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * CampaignSearchIndex queries over synthetic campaigns: a rare word, a common word,
+ * a two-word query and a short prefix as typed into a search box.
+ *
+ * Titles and descriptions are drawn from a Zipf-like vocabulary, so a few words occur in
+ * most campaigns and most words are rare. Override the size with -p campaigns=...
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CampaignSearchBenchmark {
+
+    private static final String[] SYLLABLES = {"ka", "lo", "mi", "ra", "su", "te", "vo", "ne", "di", "pa", "gu", "re"};
+    private static final int VOCABULARY = 20_000;
+
+    @Param("100000")
+    public int campaigns;
+
+    private CampaignSearchIndex index;
+    private String[] words;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        words = new String[VOCABULARY];
+        for (int i = 0; i < VOCABULARY; i++) {
+            words[i] = word(i);
+        }
+
+        SplittableRandom random = new SplittableRandom(42);
+        List<Object[]> rows = new ArrayList<>(campaigns);
+        for (long id = 1; id <= campaigns; id++) {
+            rows.add(new Object[]{id, text(random, 5), text(random, 40)});
+        }
+        index = new CampaignSearchIndex(3.0, 64);
+        long start = System.nanoTime();
+        index.rebuild(rows);
+        System.out.printf("%nIndexed %d campaigns in %d ms%n", index.size(), (System.nanoTime() - start) / 1_000_000);
+    }
+
+    @Benchmark
+    public List<Long> rareWord() {
+        return index.search(words[5_000], 20);
+    }
+
+    @Benchmark
+    public List<Long> commonWord() {
+        return index.search(words[3], 20);
+    }
+
+    @Benchmark
+    public List<Long> twoWords() {
+        return index.search(words[10] + " " + words[400], 20);
+    }
+
+    @Benchmark
+    public List<Long> prefix() {
+        return index.search(words[700].substring(0, 3), 20);
+    }
+
+    private String text(SplittableRandom random, int length) {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < length; i++) {
+            // Rank ~ 1/u gives a Zipf-like word distribution
+            int rank = (int) Math.min(VOCABULARY - 1, 1 / random.nextDouble(1.0 / VOCABULARY, 1.0));
+            text.append(words[rank]).append(' ');
+        }
+        return text.toString();
+    }
+
+    private static String word(int n) {
+        StringBuilder word = new StringBuilder();
+        do {
+            word.append(SYLLABLES[n % SYLLABLES.length]);
+            n /= SYLLABLES.length;
+        } while (n > 0);
+        return word.toString();
+    }
+}
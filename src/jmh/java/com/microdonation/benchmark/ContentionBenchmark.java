@@ -0,0 +1,100 @@
+package com.microdonation.benchmark;
+
+import com.microdonation.dto.DonationDTO;
+import com.microdonation.service.DonationService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.search.Search;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Many threads donating to a few hot campaigns, comparing optimistic versioning plus retry
+ * (counterMode=direct) with row locking (counterMode=locking).
+ *
+ * The succeeded/failed counters show the throughput side; the tear-down checks the correctness
+ * side by comparing each campaign's raised_amount with the sum of its donations.
+ *
+ * Run with -p counterMode=direct,locking -p hotCampaigns=1,4, and add -p groupCommit=false,true
+ * to compare with donations committed in groups per campaign.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(16)
+@Fork(1)
+public class ContentionBenchmark {
+
+    @Param("2")
+    public int hotCampaigns;
+
+    private DonationService donationService;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Outcome {
+        public long succeeded;
+        public long failed;
+
+        final SplittableRandom random = new SplittableRandom();
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            succeeded = 0;
+            failed = 0;
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setUp(BenchmarkContext context) {
+        donationService = context.getBean(DonationService.class);
+    }
+
+    @TearDown(Level.Iteration)
+    public void verify(BenchmarkContext context) {
+        JdbcTemplate jdbc = context.getBean(JdbcTemplate.class);
+        Long drifted = jdbc.queryForObject("SELECT COUNT(*) FROM campaigns c WHERE c.raised_amount <> " +
+                "COALESCE((SELECT SUM(d.amount) FROM donations d WHERE d.campaign_id = c.campaign_id " +
+                "AND d.payment_status = 'PAID'), 0)", Long.class);
+        MeterRegistry registry = context.getBean(MeterRegistry.class);
+        System.out.printf("%ncounterMode=%s, groupCommit=%s: campaigns with raised_amount != SUM(donations): %d, " +
+                        "retries: %.0f, exhausted: %.0f%n",
+                context.counterMode, context.groupCommit, drifted,
+                Search.in(registry).name("retry.retries").counters().stream().mapToDouble(c -> c.count()).sum(),
+                Search.in(registry).name("retry.exhausted").counters().stream().mapToDouble(c -> c.count()).sum());
+    }
+
+    @Benchmark
+    public void donateToHotCampaign(BenchmarkContext context, Outcome outcome) {
+        DonationDTO donation = new DonationDTO();
+        donation.setUserId(context.randomUserId(outcome.random));
+        donation.setCampaignId((long) outcome.random.nextInt(hotCampaigns) + 1);
+        donation.setAmount(BigDecimal.valueOf(outcome.random.nextInt(1, 500)));
+        donation.setPaymentMode("UPI");
+        try {
+            donationService.makeDonation(donation);
+            outcome.succeeded++;
+        } catch (RuntimeException e) {
+            outcome.failed++;
+        }
+    }
+}
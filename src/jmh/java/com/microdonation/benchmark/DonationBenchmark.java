@@ -0,0 +1,53 @@
+package com.microdonation.benchmark;
+
+import com.microdonation.dto.DonationDTO;
+import com.microdonation.service.DonationService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * DonationService.makeDonation end to end (wallet debit, insert, campaign update).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DonationBenchmark {
+
+    private DonationService donationService;
+
+    @State(Scope.Thread)
+    public static class ThreadState {
+        final SplittableRandom random = new SplittableRandom();
+    }
+
+    @Setup(Level.Trial)
+    public void setUp(BenchmarkContext context) {
+        donationService = context.getBean(DonationService.class);
+    }
+
+    @Benchmark
+    public DonationDTO makeDonation(BenchmarkContext context, ThreadState state) {
+        DonationDTO donation = new DonationDTO();
+        donation.setUserId(context.randomUserId(state.random));
+        donation.setCampaignId(context.randomCampaignId(state.random));
+        donation.setAmount(BigDecimal.valueOf(state.random.nextInt(1, 500)));
+        donation.setPaymentMode("UPI");
+        return donationService.makeDonation(donation);
+    }
+}
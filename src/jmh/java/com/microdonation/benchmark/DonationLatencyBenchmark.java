@@ -0,0 +1,116 @@
+package com.microdonation.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency distribution (p50/p99/...) of POST /api/donations over HTTP while other
+ * clients keep downloading PDF and Excel user-report exports from the same server.
+ *
+ * Compare request-handling modes and export load with, for example:
+ * -p virtualThreads=false,true -p exportClients=0,32
+ * Make each export heavier with fewer users, e.g. -p users=100 (about donations / users rows per report).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 10)
+@Threads(16)
+@Fork(1)
+public class DonationLatencyBenchmark {
+
+    private static final String[] EXPORT_FORMATS = {"pdf", "excel"};
+
+    @Param({"0", "32"})
+    public int exportClients;
+
+    private final HttpClient httpClient = HttpClient.newHttpClient();
+    private final List<Thread> exportThreads = new ArrayList<>();
+    private volatile boolean running;
+    private String baseUrl;
+
+    @State(Scope.Thread)
+    public static class ThreadState {
+        final SplittableRandom random = new SplittableRandom();
+    }
+
+    @Setup(Level.Trial)
+    public void setUp(BenchmarkContext context) {
+        baseUrl = "http://localhost:" + context.getServerPort();
+        running = true;
+        for (int i = 0; i < exportClients; i++) {
+            SplittableRandom random = new SplittableRandom(i);
+            Thread thread = new Thread(() -> downloadExports(context, random), "export-client-" + i);
+            thread.setDaemon(true);
+            thread.start();
+            exportThreads.add(thread);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws InterruptedException {
+        running = false;
+        for (Thread thread : exportThreads) {
+            thread.join();
+        }
+        exportThreads.clear();
+    }
+
+    @Benchmark
+    public int makeDonation(BenchmarkContext context, ThreadState state) throws IOException, InterruptedException {
+        String body = "{\"userId\":" + context.randomUserId(state.random) +
+                ",\"campaignId\":" + context.randomCampaignId(state.random) +
+                ",\"amount\":" + state.random.nextInt(1, 500) +
+                ",\"paymentMode\":\"UPI\"}";
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + "/api/donations"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+
+        HttpResponse<Void> response = httpClient.send(request, HttpResponse.BodyHandlers.discarding());
+        if (response.statusCode() != 201) {
+            throw new IllegalStateException("Donation failed with HTTP " + response.statusCode());
+        }
+        return response.statusCode();
+    }
+
+    private void downloadExports(BenchmarkContext context, SplittableRandom random) {
+        HttpClient client = HttpClient.newHttpClient();
+        while (running) {
+            String format = EXPORT_FORMATS[random.nextInt(EXPORT_FORMATS.length)];
+            HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + "/api/reports/user/" +
+                    context.randomUserId(random) + "/export/" + format)).build();
+            try {
+                client.send(request, HttpResponse.BodyHandlers.discarding());
+            } catch (IOException e) {
+                // Keep generating load; a failed download only lowers the export pressure
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.microdonation.benchmark;
+
+import com.microdonation.dto.CampaignReportDTO;
+import com.microdonation.dto.UserReportDTO;
+import com.microdonation.service.ExcelExportService;
+import com.microdonation.service.PdfExportService;
+import com.microdonation.service.ReportService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * PDF and Excel rendering of pre-built reports, isolated from the database.
+ * The user report holds roughly donations / users history rows.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ExportBenchmark {
+
+    private PdfExportService pdfExportService;
+    private ExcelExportService excelExportService;
+    private CampaignReportDTO campaignReport;
+    private UserReportDTO userReport;
+
+    @Setup(Level.Trial)
+    public void setUp(BenchmarkContext context) {
+        pdfExportService = context.getBean(PdfExportService.class);
+        excelExportService = context.getBean(ExcelExportService.class);
+
+        ReportService reportService = context.getBean(ReportService.class);
+        campaignReport = reportService.getCampaignReport(1L);
+        userReport = reportService.getUserReport(1L);
+    }
+
+    @Benchmark
+    public byte[] campaignReportPdf() throws IOException {
+        return pdfExportService.generateCampaignReportPdf(campaignReport);
+    }
+
+    @Benchmark
+    public byte[] campaignReportExcel() throws IOException {
+        return excelExportService.generateCampaignReportExcel(campaignReport);
+    }
+
+    @Benchmark
+    public byte[] userReportPdf() throws IOException {
+        return pdfExportService.generateUserReportPdf(userReport);
+    }
+
+    @Benchmark
+    public byte[] userReportExcel() throws IOException {
+        return excelExportService.generateUserReportExcel(userReport);
+    }
+}
@@ -0,0 +1,153 @@
+package com.microdonation.benchmark;
+
+import com.itextpdf.kernel.pdf.PdfDocument;
+import com.itextpdf.kernel.pdf.PdfWriter;
+import com.itextpdf.layout.Document;
+import com.itextpdf.layout.element.Cell;
+import com.itextpdf.layout.element.Paragraph;
+import com.itextpdf.layout.element.Table;
+import com.itextpdf.layout.properties.UnitValue;
+import com.microdonation.dto.DonationDTO;
+import com.microdonation.dto.UserReportDTO;
+import com.microdonation.service.PdfExportService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * User report PDF with a long donation history: the previous in-memory table rendered
+ * into a byte[] versus PdfExportService's large-table mode streaming to the response.
+ *
+ * Reports time per document plus two auxiliary counters per invocation:
+ * firstByteMs (time until the first byte reaches the client stream) and peakHeapMb
+ * (peak heap pool usage during the render). JMH sums EVENTS counters over the
+ * measurement iterations, so divide them by Cnt. Run with a fixed heap, e.g.
+ * -Djmh.args="PdfLargeTableBenchmark -jvmArgs -Xmx2g"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class PdfLargeTableBenchmark {
+
+    @Param("100000")
+    public int rows;
+
+    private final PdfExportService pdfExportService = new PdfExportService(new SimpleMeterRegistry());
+    private UserReportDTO report;
+
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    @State(Scope.Thread)
+    public static class ResponseMetrics {
+        public double firstByteMs;
+        public double peakHeapMb;
+
+        private long startNanos;
+
+        @Setup(Level.Invocation)
+        public void reset() {
+            System.gc();
+            ManagementFactory.getMemoryPoolMXBeans().forEach(MemoryPoolMXBean::resetPeakUsage);
+            startNanos = System.nanoTime();
+        }
+
+        @TearDown(Level.Invocation)
+        public void recordPeakHeap() {
+            peakHeapMb = ManagementFactory.getMemoryPoolMXBeans().stream()
+                    .filter(pool -> pool.getType() == MemoryType.HEAP)
+                    .mapToLong(pool -> pool.getPeakUsage().getUsed())
+                    .sum() / (1024.0 * 1024.0);
+        }
+
+        OutputStream clientStream() {
+            return new OutputStream() {
+                private boolean first = true;
+
+                @Override
+                public void write(int b) {
+                    markFirstByte();
+                }
+
+                @Override
+                public void write(byte[] b, int off, int len) {
+                    markFirstByte();
+                }
+
+                private void markFirstByte() {
+                    if (first) {
+                        first = false;
+                        firstByteMs = (System.nanoTime() - startNanos) / 1_000_000.0;
+                    }
+                }
+            };
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        List<DonationDTO> history = new ArrayList<>(rows);
+        LocalDateTime now = LocalDateTime.now();
+        for (int i = 0; i < rows; i++) {
+            history.add(new DonationDTO((long) i, 1L, (long) (i % 50), BigDecimal.valueOf(10 + i % 990),
+                    now.minusMinutes(i), "PAID", "UPI", "TXN" + i, "Benchmark Donor", "Campaign " + (i % 50)));
+        }
+        report = new UserReportDTO(1L, "Benchmark Donor", "donor@bench.local",
+                BigDecimal.valueOf(rows * 500L), (long) rows, history);
+    }
+
+    @Benchmark
+    public void largeTableStreamed(ResponseMetrics metrics) throws IOException {
+        pdfExportService.writeUserReportPdf(report, metrics.clientStream());
+    }
+
+    /**
+     * The approach PdfExportService used before large-table mode: one Table holding every row,
+     * rendered into a ByteArrayOutputStream and only then copied to the client.
+     */
+    @Benchmark
+    public void inMemoryTableBuffered(ResponseMetrics metrics) throws IOException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        try (PdfWriter writer = new PdfWriter(buffer);
+             PdfDocument pdfDoc = new PdfDocument(writer);
+             Document document = new Document(pdfDoc)) {
+            Table table = new Table(UnitValue.createPercentArray(new float[]{10, 20, 25, 15, 20, 10}))
+                    .useAllAvailableWidth();
+            for (DonationDTO donation : report.getDonationHistory()) {
+                table.addCell(new Cell().add(new Paragraph(donation.getDonationId().toString()).setFontSize(9)));
+                table.addCell(new Cell().add(new Paragraph(donation.getUserName()).setFontSize(9)));
+                table.addCell(new Cell().add(new Paragraph(donation.getCampaignTitle()).setFontSize(9)));
+                table.addCell(new Cell().add(new Paragraph(donation.getAmount().toPlainString()).setFontSize(9)));
+                table.addCell(new Cell().add(new Paragraph(donation.getDonationDate().toString()).setFontSize(9)));
+                table.addCell(new Cell().add(new Paragraph(donation.getPaymentStatus()).setFontSize(9)));
+            }
+            document.add(table);
+        }
+        buffer.writeTo(metrics.clientStream());
+    }
+}
@@ -0,0 +1,53 @@
+package com.microdonation.benchmark;
+
+import com.microdonation.dto.CampaignReportDTO;
+import com.microdonation.dto.UserReportDTO;
+import com.microdonation.service.ReportService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ReportService report assembly for a random campaign or user.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ReportBenchmark {
+
+    private ReportService reportService;
+
+    @State(Scope.Thread)
+    public static class ThreadState {
+        final SplittableRandom random = new SplittableRandom();
+    }
+
+    @Setup(Level.Trial)
+    public void setUp(BenchmarkContext context) {
+        reportService = context.getBean(ReportService.class);
+    }
+
+    @Benchmark
+    public CampaignReportDTO campaignReport(BenchmarkContext context, ThreadState state) {
+        return reportService.getCampaignReport(context.randomCampaignId(state.random));
+    }
+
+    @Benchmark
+    public UserReportDTO userReport(BenchmarkContext context, ThreadState state) {
+        return reportService.getUserReport(context.randomUserId(state.random));
+    }
+}
@@ -0,0 +1,44 @@
+package com.microdonation.benchmark;
+
+import com.microdonation.service.TransactionIdGenerator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Transaction id generation from several threads at once: the time-ordered generator, whose
+ * threads share one compare-and-set, against the earlier random UUID prefix.
+ *
+ * Change the thread count with -t.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Threads(4)
+@Fork(1)
+public class TransactionIdBenchmark {
+
+    private final TransactionIdGenerator generator = new TransactionIdGenerator(1);
+
+    @Benchmark
+    public String timeOrdered() {
+        return generator.nextTransactionId();
+    }
+
+    @Benchmark
+    public String randomUuidPrefix() {
+        return "TXN" + UUID.randomUUID().toString().substring(0, 8).toUpperCase();
+    }
+}
@@ -0,0 +1,78 @@
+package com.microdonation.config;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.cache.transaction.TransactionAwareCacheManagerProxy;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+/**
+ * Bounded Caffeine caches for read-mostly data.
+ *
+ * Evictions are deferred until the surrounding transaction commits, so a reader can
+ * never re-populate a cache with data from before the change that evicted it.
+ */
+@Configuration
+@EnableCaching
+public class CacheConfig {
+
+    public static final String CAMPAIGNS = "campaigns";
+    public static final String ACTIVE_CAMPAIGNS = "activeCampaigns";
+    public static final String PRINCIPALS = "principals";
+    public static final String IDEMPOTENCY = "idempotency";
+
+    @Value("${campaign.cache.max-size:1000}")
+    private long campaignCacheMaxSize;
+
+    @Value("${campaign.cache.ttl-seconds:300}")
+    private long campaignCacheTtlSeconds;
+
+    @Value("${campaign.cache.active-ttl-seconds:60}")
+    private long activeCampaignsTtlSeconds;
+
+    @Value("${principal.cache.max-size:10000}")
+    private long principalCacheMaxSize;
+
+    @Value("${principal.cache.ttl-seconds:900}")
+    private long principalCacheTtlSeconds;
+
+    @Value("${idempotency.memory.max-size:10000}")
+    private long idempotencyCacheMaxSize;
+
+    @Value("${idempotency.memory.ttl-minutes:10}")
+    private long idempotencyCacheTtlMinutes;
+
+    @Bean
+    public CacheManager cacheManager() {
+        CaffeineCacheManager cacheManager = new CaffeineCacheManager();
+        cacheManager.setAllowNullValues(false);
+        cacheManager.registerCustomCache(CAMPAIGNS, Caffeine.newBuilder()
+                .maximumSize(campaignCacheMaxSize)
+                .expireAfterWrite(Duration.ofSeconds(campaignCacheTtlSeconds))
+                .recordStats()
+                .build());
+        // A single entry; the TTL also drops campaigns whose end date has passed
+        cacheManager.registerCustomCache(ACTIVE_CAMPAIGNS, Caffeine.newBuilder()
+                .maximumSize(1)
+                .expireAfterWrite(Duration.ofSeconds(activeCampaignsTtlSeconds))
+                .recordStats()
+                .build());
+        cacheManager.registerCustomCache(PRINCIPALS, Caffeine.newBuilder()
+                .maximumSize(principalCacheMaxSize)
+                .expireAfterAccess(Duration.ofSeconds(principalCacheTtlSeconds))
+                .recordStats()
+                .build());
+        // In-memory tier of the idempotency store; older responses are read back from the database
+        cacheManager.registerCustomCache(IDEMPOTENCY, Caffeine.newBuilder()
+                .maximumSize(idempotencyCacheMaxSize)
+                .expireAfterWrite(Duration.ofMinutes(idempotencyCacheTtlMinutes))
+                .recordStats()
+                .build());
+        return new TransactionAwareCacheManagerProxy(cacheManager);
+    }
+}
@@ -0,0 +1,42 @@
+package com.microdonation.controller;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import lombok.RequiredArgsConstructor;
+import org.springframework.cache.CacheManager;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/cache")
+@RequiredArgsConstructor
+@CrossOrigin(origins = "*")
+public class CacheController {
+
+    private final CacheManager cacheManager;
+
+    /**
+     * Hit/miss statistics of the in-process caches
+     * GET /api/cache/stats
+     */
+    @GetMapping("/stats")
+    public ResponseEntity<Map<String, Object>> getCacheStats() {
+        Map<String, Object> response = new LinkedHashMap<>();
+        for (String name : cacheManager.getCacheNames()) {
+            if (cacheManager.getCache(name).getNativeCache() instanceof Cache<?, ?> cache) {
+                CacheStats stats = cache.stats();
+                Map<String, Object> cacheStats = new LinkedHashMap<>();
+                cacheStats.put("size", cache.estimatedSize());
+                cacheStats.put("hits", stats.hitCount());
+                cacheStats.put("misses", stats.missCount());
+                cacheStats.put("hitRate", stats.hitRate());
+                cacheStats.put("evictions", stats.evictionCount());
+                response.put(name, cacheStats);
+            }
+        }
+        return ResponseEntity.ok(response);
+    }
+}
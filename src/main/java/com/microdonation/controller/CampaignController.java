@@ -1,14 +1,22 @@
 package com.microdonation.controller;
 
 import com.microdonation.dto.CampaignDTO;
+import com.microdonation.dto.CampaignStatsDTO;
+import com.microdonation.dto.CursorPageDTO;
+import com.microdonation.service.CampaignProgressBroadcaster;
 import com.microdonation.service.CampaignService;
+import com.microdonation.service.CampaignStatsService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api/campaigns")
@@ -17,6 +25,8 @@ import java.util.List;
 public class CampaignController {
 
     private final CampaignService campaignService;
+    private final CampaignStatsService campaignStatsService;
+    private final CampaignProgressBroadcaster progressBroadcaster;
 
     @PostMapping
     public ResponseEntity<CampaignDTO> createCampaign(@Valid @RequestBody CampaignDTO campaignDTO) {
@@ -28,10 +38,67 @@ public class CampaignController {
         }
     }
 
+    /**
+     * List campaigns a page at a time, newest first: GET /api/campaigns?size=20, then
+     * ?cursor={nextCursor}&size=20. Without size the page holds DEFAULT_PAGE_SIZE campaigns,
+     * and size is capped at MAX_PAGE_SIZE.
+     */
     @GetMapping
-    public ResponseEntity<List<CampaignDTO>> getAllCampaigns() {
-        List<CampaignDTO> campaigns = campaignService.getAllCampaigns();
-        return ResponseEntity.ok(campaigns);
+    public ResponseEntity<CursorPageDTO<CampaignDTO>> getAllCampaigns(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size) {
+        try {
+            CursorPageDTO<CampaignDTO> page = campaignService.getCampaignsPage(cursor,
+                    size != null ? size : CursorPageDTO.DEFAULT_PAGE_SIZE);
+            return ResponseEntity.ok(page);
+        } catch (Exception e) {
+            return new ResponseEntity<>(null, HttpStatus.BAD_REQUEST);
+        }
+    }
+
+    /**
+     * Donation totals of a campaign, read from the campaign_stats table
+     */
+    @GetMapping("/{id}/stats")
+    public ResponseEntity<CampaignStatsDTO> getCampaignStats(@PathVariable Long id) {
+        return ResponseEntity.ok(campaignStatsService.getStats(id));
+    }
+
+    /**
+     * Recompute campaign_stats for every campaign from the donations table (ADMIN only)
+     * POST /api/campaigns/stats/rebuild
+     */
+    @PostMapping("/stats/rebuild")
+    public ResponseEntity<Map<String, Object>> rebuildCampaignStats() {
+        int campaigns = campaignStatsService.rebuildStats();
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("campaigns", campaigns);
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * Full-text search over campaign titles and descriptions, most relevant first
+     * GET /api/campaigns/search?q=clean water&limit=20
+     */
+    @GetMapping("/search")
+    public ResponseEntity<List<CampaignDTO>> searchCampaigns(
+            @RequestParam String q,
+            @RequestParam(defaultValue = "20") int limit) {
+        return ResponseEntity.ok(campaignService.searchCampaigns(q, limit));
+    }
+
+    /**
+     * Live progress of a campaign as Server-Sent Events ("progress" events with a CampaignProgressDTO)
+     * GET /api/campaigns/{id}/live
+     */
+    @GetMapping(value = "/{id}/live", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> streamCampaignProgress(@PathVariable Long id) {
+        try {
+            return ResponseEntity.ok(progressBroadcaster.subscribe(id));
+        } catch (Exception e) {
+            return new ResponseEntity<>(null, HttpStatus.NOT_FOUND);
+        }
     }
 
     @GetMapping("/active")
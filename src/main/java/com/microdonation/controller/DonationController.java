@@ -1,5 +1,7 @@
 package com.microdonation.controller;
 
+import com.microdonation.dto.CursorPageDTO;
+import com.microdonation.dto.DonationBatchResultDTO;
 import com.microdonation.dto.DonationDTO;
 import com.microdonation.service.DonationService;
 import jakarta.validation.Valid;
@@ -28,10 +30,36 @@ public class DonationController {
         }
     }
 
+    /**
+     * Record many donations at once (offline / event-day imports)
+     * POST /api/donations/batch
+     * Body: [ { "userId": 1, "campaignId": 2, "amount": 100.00, "paymentMode": "UPI" }, ... ]
+     */
+    @PostMapping("/batch")
+    public ResponseEntity<List<DonationBatchResultDTO>> makeDonations(@RequestBody List<DonationDTO> donationDTOs) {
+        try {
+            List<DonationBatchResultDTO> results = donationService.makeDonations(donationDTOs);
+            return ResponseEntity.ok(results);
+        } catch (Exception e) {
+            return new ResponseEntity<>(null, HttpStatus.BAD_REQUEST);
+        }
+    }
+
+    /**
+     * List donations a page at a time, newest first: GET /api/donations?size=20, then
+     * ?cursor={nextCursor}&size=20. Without size the page holds DEFAULT_PAGE_SIZE donations,
+     * and size is capped at MAX_PAGE_SIZE.
+     */
     @GetMapping
-    public ResponseEntity<List<DonationDTO>> getAllDonations() {
-        List<DonationDTO> donations = donationService.getAllDonations();
-        return ResponseEntity.ok(donations);
+    public ResponseEntity<CursorPageDTO<DonationDTO>> getAllDonations(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size) {
+        try {
+            CursorPageDTO<DonationDTO> page = donationService.getDonationsPage(cursor, pageSize(size));
+            return ResponseEntity.ok(page);
+        } catch (Exception e) {
+            return new ResponseEntity<>(null, HttpStatus.BAD_REQUEST);
+        }
     }
 
     @GetMapping("/{id}")
@@ -44,15 +72,49 @@ public class DonationController {
         }
     }
 
+    @GetMapping("/by-transaction/{transactionId}")
+    public ResponseEntity<DonationDTO> getDonationByTransactionId(@PathVariable String transactionId) {
+        try {
+            DonationDTO donation = donationService.getDonationByTransactionId(transactionId);
+            return ResponseEntity.ok(donation);
+        } catch (Exception e) {
+            return new ResponseEntity<>(null, HttpStatus.NOT_FOUND);
+        }
+    }
+
+    /**
+     * Donations of a user, a page at a time (see getAllDonations)
+     */
     @GetMapping("/user/{userId}")
-    public ResponseEntity<List<DonationDTO>> getDonationsByUser(@PathVariable Long userId) {
-        List<DonationDTO> donations = donationService.getDonationsByUser(userId);
-        return ResponseEntity.ok(donations);
+    public ResponseEntity<CursorPageDTO<DonationDTO>> getDonationsByUser(
+            @PathVariable Long userId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size) {
+        try {
+            CursorPageDTO<DonationDTO> page = donationService.getDonationsPageByUser(userId, cursor, pageSize(size));
+            return ResponseEntity.ok(page);
+        } catch (Exception e) {
+            return new ResponseEntity<>(null, HttpStatus.BAD_REQUEST);
+        }
     }
 
+    /**
+     * Donations to a campaign, a page at a time (see getAllDonations)
+     */
     @GetMapping("/campaign/{campaignId}")
-    public ResponseEntity<List<DonationDTO>> getDonationsByCampaign(@PathVariable Long campaignId) {
-        List<DonationDTO> donations = donationService.getDonationsByCampaign(campaignId);
-        return ResponseEntity.ok(donations);
+    public ResponseEntity<CursorPageDTO<DonationDTO>> getDonationsByCampaign(
+            @PathVariable Long campaignId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size) {
+        try {
+            CursorPageDTO<DonationDTO> page = donationService.getDonationsPageByCampaign(campaignId, cursor, pageSize(size));
+            return ResponseEntity.ok(page);
+        } catch (Exception e) {
+            return new ResponseEntity<>(null, HttpStatus.BAD_REQUEST);
+        }
+    }
+
+    private static int pageSize(Integer size) {
+        return size != null ? size : CursorPageDTO.DEFAULT_PAGE_SIZE;
     }
 }
@@ -1,16 +1,30 @@
 package com.microdonation.controller;
 
 import com.microdonation.dto.CampaignReportDTO;
+import com.microdonation.dto.CampaignTimeseriesDTO;
+import com.microdonation.dto.ExportJobDTO;
 import com.microdonation.dto.UserReportDTO;
 import com.microdonation.service.ExcelExportService;
+import com.microdonation.service.ExportJobService;
 import com.microdonation.service.PdfExportService;
 import com.microdonation.service.ReportService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ContentDisposition;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.concurrent.RejectedExecutionException;
 
 @RestController
 @RequestMapping("/api/reports")
@@ -18,9 +32,18 @@ import org.springframework.web.bind.annotation.*;
 @CrossOrigin(origins = "*")
 public class ReportController {
 
+    private static final String XLSX_CONTENT_TYPE = "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet";
+
+    // Tomcat request attributes for handing a file to the connector's sendfile support
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
     private final ReportService reportService;
     private final PdfExportService pdfExportService;
     private final ExcelExportService excelExportService;
+    private final ExportJobService exportJobService;
 
     @GetMapping("/campaign/{campaignId}")
     public ResponseEntity<CampaignReportDTO> getCampaignReport(@PathVariable Long campaignId) {
@@ -32,6 +55,23 @@ public class ReportController {
         }
     }
 
+    /**
+     * Hourly or daily donation totals of a campaign, from the rollup buckets
+     */
+    @GetMapping("/campaign/{campaignId}/timeseries")
+    public ResponseEntity<CampaignTimeseriesDTO> getCampaignTimeseries(
+            @PathVariable Long campaignId,
+            @RequestParam(defaultValue = "day") String granularity,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+        try {
+            return ResponseEntity.ok(reportService.getCampaignTimeseries(campaignId, granularity, from, to));
+        } catch (Exception e) {
+            HttpStatus status = "Campaign not found".equals(e.getMessage()) ? HttpStatus.NOT_FOUND : HttpStatus.BAD_REQUEST;
+            return new ResponseEntity<>(null, status);
+        }
+    }
+
     @GetMapping("/user/{userId}")
     public ResponseEntity<UserReportDTO> getUserReport(@PathVariable Long userId) {
         try {
@@ -43,86 +83,173 @@ public class ReportController {
     }
 
     /**
-     * Export Campaign Report as PDF
+     * Export Campaign Report as PDF (streamed)
      */
     @GetMapping("/campaign/{campaignId}/export/pdf")
-    public ResponseEntity<byte[]> exportCampaignReportPdf(@PathVariable Long campaignId) {
+    public ResponseEntity<StreamingResponseBody> exportCampaignReportPdf(@PathVariable Long campaignId) {
         try {
             CampaignReportDTO report = reportService.getCampaignReport(campaignId);
-            byte[] pdfBytes = pdfExportService.generateCampaignReportPdf(report);
+            StreamingResponseBody body = out -> pdfExportService.writeCampaignReportPdf(report, out);
 
             HttpHeaders headers = new HttpHeaders();
             headers.setContentType(MediaType.APPLICATION_PDF);
             headers.setContentDispositionFormData("attachment",
                     "campaign_report_" + campaignId + ".pdf");
-            headers.setContentLength(pdfBytes.length);
 
-            return new ResponseEntity<>(pdfBytes, headers, HttpStatus.OK);
+            return new ResponseEntity<>(body, headers, HttpStatus.OK);
         } catch (Exception e) {
             return new ResponseEntity<>(null, HttpStatus.INTERNAL_SERVER_ERROR);
         }
     }
 
     /**
-     * Export Campaign Report as Excel
+     * Export Campaign Report as Excel (streamed)
      */
     @GetMapping("/campaign/{campaignId}/export/excel")
-    public ResponseEntity<byte[]> exportCampaignReportExcel(@PathVariable Long campaignId) {
+    public ResponseEntity<StreamingResponseBody> exportCampaignReportExcel(@PathVariable Long campaignId) {
         try {
             CampaignReportDTO report = reportService.getCampaignReport(campaignId);
-            byte[] excelBytes = excelExportService.generateCampaignReportExcel(report);
+            StreamingResponseBody body = out -> excelExportService.writeCampaignReportExcel(report, out);
 
             HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.parseMediaType("application/vnd.openxmlformats-officedocument.spreadsheetml.sheet"));
+            headers.setContentType(MediaType.parseMediaType(XLSX_CONTENT_TYPE));
             headers.setContentDispositionFormData("attachment",
                     "campaign_report_" + campaignId + ".xlsx");
-            headers.setContentLength(excelBytes.length);
 
-            return new ResponseEntity<>(excelBytes, headers, HttpStatus.OK);
+            return new ResponseEntity<>(body, headers, HttpStatus.OK);
         } catch (Exception e) {
             return new ResponseEntity<>(null, HttpStatus.INTERNAL_SERVER_ERROR);
         }
     }
 
     /**
-     * Export User Report as PDF
+     * Export User Report as PDF (streamed; the donation history goes from a database cursor
+     * straight into the table)
      */
     @GetMapping("/user/{userId}/export/pdf")
-    public ResponseEntity<byte[]> exportUserReportPdf(@PathVariable Long userId) {
+    public ResponseEntity<StreamingResponseBody> exportUserReportPdf(@PathVariable Long userId) {
         try {
-            UserReportDTO report = reportService.getUserReport(userId);
-            byte[] pdfBytes = pdfExportService.generateUserReportPdf(report);
+            StreamingResponseBody body = out -> reportService.writeUserReport(userId,
+                    (report, history) -> pdfExportService.writeUserReportPdf(report, history, out));
 
             HttpHeaders headers = new HttpHeaders();
             headers.setContentType(MediaType.APPLICATION_PDF);
             headers.setContentDispositionFormData("attachment",
                     "user_report_" + userId + ".pdf");
-            headers.setContentLength(pdfBytes.length);
 
-            return new ResponseEntity<>(pdfBytes, headers, HttpStatus.OK);
+            return new ResponseEntity<>(body, headers, HttpStatus.OK);
         } catch (Exception e) {
             return new ResponseEntity<>(null, HttpStatus.INTERNAL_SERVER_ERROR);
         }
     }
 
     /**
-     * Export User Report as Excel
+     * Export User Report as Excel (streamed; the donation history goes from a database cursor
+     * straight into the workbook)
      */
     @GetMapping("/user/{userId}/export/excel")
-    public ResponseEntity<byte[]> exportUserReportExcel(@PathVariable Long userId) {
+    public ResponseEntity<StreamingResponseBody> exportUserReportExcel(@PathVariable Long userId) {
         try {
-            UserReportDTO report = reportService.getUserReport(userId);
-            byte[] excelBytes = excelExportService.generateUserReportExcel(report);
+            StreamingResponseBody body = out -> reportService.writeUserReport(userId,
+                    (report, history) -> excelExportService.writeUserReportExcel(report, history, out));
 
             HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.parseMediaType("application/vnd.openxmlformats-officedocument.spreadsheetml.sheet"));
+            headers.setContentType(MediaType.parseMediaType(XLSX_CONTENT_TYPE));
             headers.setContentDispositionFormData("attachment",
                     "user_report_" + userId + ".xlsx");
-            headers.setContentLength(excelBytes.length);
 
-            return new ResponseEntity<>(excelBytes, headers, HttpStatus.OK);
+            return new ResponseEntity<>(body, headers, HttpStatus.OK);
         } catch (Exception e) {
             return new ResponseEntity<>(null, HttpStatus.INTERNAL_SERVER_ERROR);
         }
     }
+
+    /**
+     * Queue a campaign report export; an identical pending or finished export is reused
+     * POST /api/reports/campaign/{campaignId}/export-jobs?format=pdf|excel
+     */
+    @PostMapping("/campaign/{campaignId}/export-jobs")
+    public ResponseEntity<ExportJobDTO> submitCampaignExport(@PathVariable Long campaignId,
+                                                             @RequestParam(defaultValue = "pdf") String format) {
+        try {
+            ExportJobDTO job = exportJobService.submitCampaignExport(campaignId, format);
+            return new ResponseEntity<>(job, HttpStatus.ACCEPTED);
+        } catch (RejectedExecutionException e) {
+            return new ResponseEntity<>(null, HttpStatus.SERVICE_UNAVAILABLE);
+        } catch (Exception e) {
+            return new ResponseEntity<>(null, HttpStatus.BAD_REQUEST);
+        }
+    }
+
+    /**
+     * Queue a user report export; an identical pending or finished export is reused
+     * POST /api/reports/user/{userId}/export-jobs?format=pdf|excel
+     */
+    @PostMapping("/user/{userId}/export-jobs")
+    public ResponseEntity<ExportJobDTO> submitUserExport(@PathVariable Long userId,
+                                                         @RequestParam(defaultValue = "pdf") String format) {
+        try {
+            ExportJobDTO job = exportJobService.submitUserExport(userId, format);
+            return new ResponseEntity<>(job, HttpStatus.ACCEPTED);
+        } catch (RejectedExecutionException e) {
+            return new ResponseEntity<>(null, HttpStatus.SERVICE_UNAVAILABLE);
+        } catch (Exception e) {
+            return new ResponseEntity<>(null, HttpStatus.BAD_REQUEST);
+        }
+    }
+
+    @GetMapping("/export-jobs/{jobId}")
+    public ResponseEntity<ExportJobDTO> getExportJob(@PathVariable String jobId) {
+        try {
+            return ResponseEntity.ok(exportJobService.getJob(jobId));
+        } catch (Exception e) {
+            return new ResponseEntity<>(null, HttpStatus.NOT_FOUND);
+        }
+    }
+
+    /**
+     * Download the file of a completed export job.
+     * When the connector offers sendfile (Tomcat NIO, for files above its sendfile threshold) the
+     * file is handed to it and sent from the page cache without passing through the JVM (zero-copy).
+     * Otherwise it is copied onto the response stream through a buffer. While the download is in
+     * progress the job's file is not purged.
+     */
+    @GetMapping("/export-jobs/{jobId}/download")
+    public void downloadExport(@PathVariable String jobId, HttpServletRequest request,
+                               HttpServletResponse response) throws IOException {
+        ExportJobDTO job;
+        Path file;
+        try {
+            job = exportJobService.getJob(jobId);
+            file = exportJobService.beginDownload(jobId);
+        } catch (Exception e) {
+            response.setStatus(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+        try {
+            sendFile(file, job, request, response);
+        } finally {
+            exportJobService.endDownload(jobId);
+        }
+    }
+
+    private void sendFile(Path file, ExportJobDTO job, HttpServletRequest request,
+                          HttpServletResponse response) throws IOException {
+        long size = Files.size(file);
+        response.setContentType(ExportJobService.FORMAT_PDF.equals(job.getFormat())
+                ? MediaType.APPLICATION_PDF_VALUE : XLSX_CONTENT_TYPE);
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION,
+                ContentDisposition.attachment().filename(job.getFileName()).build().toString());
+        response.setContentLengthLong(size);
+
+        if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+            request.setAttribute(SENDFILE_FILENAME, file.toString());
+            request.setAttribute(SENDFILE_START, 0L);
+            request.setAttribute(SENDFILE_END, size);
+            return;
+        }
+
+        // A plain buffered copy: the servlet output stream has no file descriptor for transferTo to use
+        Files.copy(file, response.getOutputStream());
+    }
 }
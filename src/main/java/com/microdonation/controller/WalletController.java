@@ -44,7 +44,7 @@ public class WalletController {
      * Body: { "userId": 1, "amount": 1000.00 }
      */
     @PostMapping("/add")
-    public ResponseEntity<Map<String, Object>> addMoneyToWallet(
+    public ResponseEntity<?> addMoneyToWallet(
             @RequestBody Map<String, Object> request) {
         try {
             Long userId = Long.valueOf(request.get("userId").toString());
@@ -56,14 +56,7 @@ public class WalletController {
                 return new ResponseEntity<>(errorResponse, HttpStatus.BAD_REQUEST);
             }
 
-            BigDecimal newBalance = userService.addMoneyToWallet(userId, amount);
-
-            Map<String, Object> response = new HashMap<>();
-            response.put("userId", userId);
-            response.put("amountAdded", amount);
-            response.put("newBalance", newBalance);
-            response.put("message", "Money added to wallet successfully");
-            return ResponseEntity.ok(response);
+            return ResponseEntity.ok(userService.addMoneyToWallet(userId, amount));
         } catch (Exception e) {
             Map<String, Object> errorResponse = new HashMap<>();
             errorResponse.put("error", e.getMessage());
@@ -3,7 +3,9 @@ package com.microdonation.controller;
 import com.microdonation.dto.CampaignDTO;
 import com.microdonation.dto.DonationDTO;
 import com.microdonation.dto.UserDTO;
+import com.microdonation.dto.UserPrincipalDTO;
 import com.microdonation.service.CampaignService;
+import com.microdonation.service.CampaignStatsService;
 import com.microdonation.service.DonationService;
 import com.microdonation.service.ReportService;
 import com.microdonation.service.UserService;
@@ -26,6 +28,7 @@ public class WebController {
     private final CampaignService campaignService;
     private final DonationService donationService;
     private final ReportService reportService;
+    private final CampaignStatsService campaignStatsService;
 
     @GetMapping("/")
     public String home(Model model) {
@@ -67,10 +70,8 @@ public class WebController {
 
         // *** FIX: Add authenticated user to model ***
         if (authentication != null && authentication.isAuthenticated()) {
-            String email = authentication.getName();
             try {
-                UserDTO user = userService.getUserByEmail(email);
-                model.addAttribute("user", user);
+                model.addAttribute("user", currentUser(authentication));
             } catch (Exception e) {
                 // User not found, proceed without user object
             }
@@ -85,6 +86,7 @@ public class WebController {
         try {
             CampaignDTO campaign = campaignService.getCampaignById(id);
             model.addAttribute("campaign", campaign);
+            model.addAttribute("stats", campaignStatsService.getStats(id));
 
             List<DonationDTO> donations = donationService.getDonationsByCampaign(id);
             model.addAttribute("donations", donations != null ? donations : Collections.emptyList());
@@ -92,9 +94,7 @@ public class WebController {
 
             // *** FIX: Add authenticated user to model so donation form appears ***
             if (authentication != null && authentication.isAuthenticated()) {
-                String email = authentication.getName();
-                UserDTO user = userService.getUserByEmail(email);
-                model.addAttribute("user", user);
+                model.addAttribute("user", currentUser(authentication));
             }
 
             return "campaign-details";
@@ -107,8 +107,7 @@ public class WebController {
     public String showCreateCampaignForm(Model model, Authentication authentication) {
         model.addAttribute("campaign", new CampaignDTO());
 
-        String email = authentication.getName();
-        UserDTO user = userService.getUserByEmail(email);
+        UserPrincipalDTO user = currentUser(authentication);
 
         List<CampaignDTO> myCampaigns = campaignService.getCampaignsByUser(user.getUserId());
         List<CampaignDTO> allCampaigns = campaignService.getAllCampaigns();
@@ -126,8 +125,7 @@ public class WebController {
             return "create-campaign";
         }
         try {
-            String email = authentication.getName();
-            UserDTO user = userService.getUserByEmail(email);
+            UserPrincipalDTO user = currentUser(authentication);
             campaignDTO.setCreatedBy(user.getUserId());
             campaignService.createCampaign(campaignDTO);
             return "redirect:/admin/dashboard";
@@ -141,8 +139,7 @@ public class WebController {
     public String makeDonation(@ModelAttribute DonationDTO donationDTO,
                                Authentication authentication, Model model) {
         try {
-            String email = authentication.getName();
-            UserDTO user = userService.getUserByEmail(email);
+            UserPrincipalDTO user = currentUser(authentication);
             donationDTO.setUserId(user.getUserId());
             donationService.makeDonation(donationDTO);
             return "redirect:/campaigns/" + donationDTO.getCampaignId() + "?success";
@@ -154,10 +151,11 @@ public class WebController {
 
     @GetMapping("/dashboard")
     public String userDashboard(Model model, Authentication authentication) {
-        String email = authentication.getName();
-        UserDTO user = userService.getUserByEmail(email);
+        UserPrincipalDTO user = currentUser(authentication);
 
         model.addAttribute("user", user);
+        // Balance changes with every donation, so it is read fresh rather than cached with the profile
+        model.addAttribute("walletBalance", userService.getWalletBalance(user.getUserId()));
 
         List<DonationDTO> userDonations = donationService.getDonationsByUser(user.getUserId());
         model.addAttribute("donations", userDonations != null ? userDonations : Collections.emptyList());
@@ -172,8 +170,7 @@ public class WebController {
 
     @GetMapping("/admin/dashboard")
     public String adminDashboard(Model model, Authentication authentication) {
-        String email = authentication.getName();
-        UserDTO user = userService.getUserByEmail(email);
+        UserPrincipalDTO user = currentUser(authentication);
 
         List<CampaignDTO> myCampaigns = campaignService.getCampaignsByUser(user.getUserId());
         List<CampaignDTO> allCampaigns = campaignService.getAllCampaigns();
@@ -195,4 +192,11 @@ public class WebController {
             return "redirect:/campaigns";
         }
     }
+
+    /**
+     * Profile of the logged-in user, served from the principal cache
+     */
+    private UserPrincipalDTO currentUser(Authentication authentication) {
+        return userService.getPrincipal(authentication.getName());
+    }
 }
@@ -6,6 +6,7 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 
 import java.math.BigDecimal;
+import java.math.RoundingMode;
 import java.time.LocalDate;
 
 @Data
@@ -42,4 +43,23 @@ public class CampaignDTO {
     private String creatorName;
 
     private Double progressPercentage;
+
+    /**
+     * Constructor used by CampaignRepository projection queries; progress is derived from the amounts
+     */
+    public CampaignDTO(Long campaignId, String title, String description, BigDecimal goalAmount,
+                       BigDecimal raisedAmount, LocalDate startDate, LocalDate endDate, String status,
+                       Long createdBy, String creatorName) {
+        this(campaignId, title, description, goalAmount, raisedAmount, startDate, endDate, status,
+                createdBy, creatorName, progressOf(raisedAmount, goalAmount));
+    }
+
+    private static Double progressOf(BigDecimal raisedAmount, BigDecimal goalAmount) {
+        if (goalAmount.compareTo(BigDecimal.ZERO) == 0) {
+            return 0.0;
+        }
+        return raisedAmount.divide(goalAmount, 4, RoundingMode.HALF_UP)
+                .multiply(new BigDecimal("100"))
+                .doubleValue();
+    }
 }
@@ -0,0 +1,31 @@
+package com.microdonation.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Live progress of a campaign, pushed to subscribers of /api/campaigns/{id}/live
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CampaignProgressDTO {
+
+    private Long campaignId;
+    private BigDecimal raisedAmount;
+    private BigDecimal goalAmount;
+    private Double progressPercentage;
+    private String status;
+    private Long totalDonations;
+    private Long totalDonors;
+
+    // Newest donation since the previous update (null in the initial snapshot)
+    private String latestDonorName;
+    private BigDecimal latestAmount;
+    private String latestPaymentMode;
+    private LocalDateTime latestDonationDate;
+}
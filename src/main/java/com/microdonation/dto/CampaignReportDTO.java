@@ -5,6 +5,7 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
 import java.util.List;
 
 @Data
@@ -19,6 +20,9 @@ public class CampaignReportDTO {
     private BigDecimal raisedAmount;
     private Double progressPercentage;
     private Long totalDonors;
+    private Long totalDonations;
+    private BigDecimal largestDonation;
+    private LocalDateTime lastDonationAt;
     private String status;
     private String startDate;
     private String endDate;
@@ -0,0 +1,21 @@
+package com.microdonation.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CampaignStatsDTO {
+
+    private Long campaignId;
+    private BigDecimal totalRaised;
+    private Long totalDonations;
+    private Long totalDonors;
+    private BigDecimal largestDonation;
+    private LocalDateTime lastDonationAt;
+}
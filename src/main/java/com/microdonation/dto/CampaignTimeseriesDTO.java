@@ -0,0 +1,20 @@
+package com.microdonation.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CampaignTimeseriesDTO {
+
+    private Long campaignId;
+    private String granularity;
+    private LocalDateTime from;
+    private LocalDateTime to;
+    private List<TimeseriesBucketDTO> buckets;
+}
@@ -0,0 +1,42 @@
+package com.microdonation.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.domain.Slice;
+
+import java.util.List;
+import java.util.function.Function;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CursorPageDTO<T> {
+
+    public static final int DEFAULT_PAGE_SIZE = 20;
+    public static final int MAX_PAGE_SIZE = 100;
+
+    private List<T> items;
+
+    private int size;
+
+    private String nextCursor; // null on the last page
+
+    /**
+     * Clamp a requested page size to 1..MAX_PAGE_SIZE
+     */
+    public static int boundedSize(int requestedSize) {
+        return Math.max(1, Math.min(requestedSize, MAX_PAGE_SIZE));
+    }
+
+    /**
+     * Build a page from a keyset slice; the cursor points after the last item
+     */
+    public static <E, T> CursorPageDTO<T> of(Slice<E> slice, Function<E, T> mapper, Function<E, PageCursor> cursorOf) {
+        List<E> content = slice.getContent();
+        String nextCursor = slice.hasNext() && !content.isEmpty()
+                ? cursorOf.apply(content.get(content.size() - 1)).encode()
+                : null;
+        return new CursorPageDTO<>(content.stream().map(mapper).toList(), content.size(), nextCursor);
+    }
+}
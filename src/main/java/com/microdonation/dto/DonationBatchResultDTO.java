@@ -0,0 +1,29 @@
+package com.microdonation.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DonationBatchResultDTO {
+
+    private int index;
+
+    private String status; // SUCCESS, FAILED
+
+    private DonationDTO donation;
+
+    private String reason; // why a FAILED item was rejected, e.g. insufficient_balance
+
+    private String error;
+
+    public static DonationBatchResultDTO success(int index, DonationDTO donation) {
+        return new DonationBatchResultDTO(index, "SUCCESS", donation, null, null);
+    }
+
+    public static DonationBatchResultDTO failed(int index, String reason, String error) {
+        return new DonationBatchResultDTO(index, "FAILED", null, reason, error);
+    }
+}
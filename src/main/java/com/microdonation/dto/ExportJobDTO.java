@@ -0,0 +1,21 @@
+package com.microdonation.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ExportJobDTO {
+
+    private String jobId;
+    private String status; // QUEUED, RUNNING, COMPLETED, FAILED
+    private String format; // pdf, excel
+    private String fileName;
+    private String error;
+    private LocalDateTime createdAt;
+    private LocalDateTime completedAt;
+}
@@ -0,0 +1,9 @@
+package com.microdonation.dto;
+
+/**
+ * Stored response of a request made with an Idempotency-Key.
+ * fingerprint identifies the original request (method, path and body), so a key reused
+ * for a different request can be rejected instead of replayed.
+ */
+public record IdempotentResponse(String fingerprint, int status, String contentType, byte[] body) {
+}
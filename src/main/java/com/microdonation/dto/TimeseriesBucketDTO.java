@@ -0,0 +1,19 @@
+package com.microdonation.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TimeseriesBucketDTO {
+
+    private LocalDateTime bucketStart;
+    private BigDecimal totalRaised;
+    private Long totalDonations;
+    private Long totalDonors;
+}
@@ -0,0 +1,20 @@
+package com.microdonation.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Profile of the logged-in user as cached for page rendering.
+ * Deliberately excludes the wallet balance, which is read on demand.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserPrincipalDTO {
+    private Long userId;
+    private String name;
+    private String email;
+    private String contactNo;
+    private String role;
+}
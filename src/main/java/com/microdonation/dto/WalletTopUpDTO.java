@@ -0,0 +1,25 @@
+package com.microdonation.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+/**
+ * Response of POST /api/wallet/add, also stored as the replay of an idempotent top-up
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class WalletTopUpDTO {
+
+    private Long userId;
+    private BigDecimal amountAdded;
+    private BigDecimal newBalance;
+    private String message;
+
+    public static WalletTopUpDTO of(Long userId, BigDecimal amountAdded, BigDecimal newBalance) {
+        return new WalletTopUpDTO(userId, amountAdded, newBalance, "Money added to wallet successfully");
+    }
+}
@@ -0,0 +1,40 @@
+package com.microdonation.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Per-campaign donation totals, maintained in the same transaction as each donation
+ * so reports can read them without aggregating the donations table.
+ */
+@Entity
+@Table(name = "campaign_stats")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CampaignStats {
+
+    @Id
+    @Column(name = "campaign_id")
+    private Long campaignId;
+
+    @Column(name = "paid_sum", nullable = false, precision = 10, scale = 2)
+    private BigDecimal paidSum = BigDecimal.ZERO;
+
+    @Column(name = "paid_count", nullable = false)
+    private Long paidCount = 0L;
+
+    @Column(name = "donor_count", nullable = false)
+    private Long donorCount = 0L;
+
+    @Column(name = "max_donation", precision = 10, scale = 2)
+    private BigDecimal maxDonation;
+
+    @Column(name = "last_donation_at")
+    private LocalDateTime lastDonationAt;
+}
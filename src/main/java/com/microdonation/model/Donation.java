@@ -12,14 +12,20 @@ import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "donations")
+@Table(name = "donations",
+        indexes = {
+                @Index(name = "idx_donations_campaign_status_date", columnList = "campaign_id, payment_status, donation_date"),
+                @Index(name = "idx_donations_user_date", columnList = "user_id, donation_date")
+        },
+        uniqueConstraints = @UniqueConstraint(name = "uk_donations_transaction_id", columnNames = "transaction_id"))
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 public class Donation {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "donation_seq")
+    @SequenceGenerator(name = "donation_seq", sequenceName = "donation_seq", allocationSize = 50)
     @Column(name = "donation_id")
     private Long donationId;
 
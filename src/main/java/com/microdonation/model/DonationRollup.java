@@ -0,0 +1,47 @@
+package com.microdonation.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * PAID donation totals of one campaign in one hour or one day, maintained in the same
+ * transaction as each donation so time series can be read without scanning donations.
+ * donorCount counts the distinct users who donated to the campaign within the bucket.
+ */
+@Entity
+@Table(name = "donation_rollups")
+@IdClass(DonationRollupId.class)
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DonationRollup {
+
+    public static final String HOUR = "HOUR";
+    public static final String DAY = "DAY";
+
+    @Id
+    @Column(name = "campaign_id")
+    private Long campaignId;
+
+    @Id
+    @Column(name = "granularity", length = 10)
+    private String granularity;
+
+    @Id
+    @Column(name = "bucket_start")
+    private LocalDateTime bucketStart;
+
+    @Column(name = "paid_sum", nullable = false, precision = 10, scale = 2)
+    private BigDecimal paidSum = BigDecimal.ZERO;
+
+    @Column(name = "paid_count", nullable = false)
+    private Long paidCount = 0L;
+
+    @Column(name = "donor_count", nullable = false)
+    private Long donorCount = 0L;
+}
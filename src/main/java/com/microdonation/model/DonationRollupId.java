@@ -0,0 +1,21 @@
+package com.microdonation.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+/**
+ * Primary key of DonationRollup: campaign, granularity and bucket start
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DonationRollupId implements Serializable {
+
+    private Long campaignId;
+    private String granularity;
+    private LocalDateTime bucketStart;
+}
@@ -0,0 +1,53 @@
+package com.microdonation.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Database tier of the idempotency store. A key is claimed (IN_PROGRESS, owned by one request
+ * until expires_at) before its request runs, and becomes COMPLETED with the response in the
+ * same transaction as the donation or top-up; the response is then kept until expires_at so
+ * retries can be replayed after a restart or cache eviction.
+ */
+@Entity
+@Table(name = "idempotency_keys", indexes = @Index(name = "idx_idempotency_keys_expires_at", columnList = "expires_at"))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class IdempotencyRecord {
+
+    public static final String IN_PROGRESS = "IN_PROGRESS";
+    public static final String COMPLETED = "COMPLETED";
+
+    @Id
+    @Column(name = "idempotency_key", length = 100)
+    private String idempotencyKey;
+
+    @Column(nullable = false, length = 64)
+    private String fingerprint;
+
+    @Column(nullable = false, length = 12)
+    private String state; // IN_PROGRESS, COMPLETED
+
+    @Column(name = "owner_token", length = 36)
+    private String ownerToken; // Request holding the claim
+
+    @Column(name = "status_code")
+    private Integer statusCode;
+
+    @Column(name = "content_type", length = 100)
+    private String contentType;
+
+    @Column(name = "response_body", length = 16777215) // MEDIUMTEXT on MySQL
+    private String responseBody;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt;
+}
@@ -0,0 +1,30 @@
+package com.microdonation.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Named lease held by a single application instance.
+ * A lease that has expired may be taken over by another instance.
+ */
+@Entity
+@Table(name = "instance_leases")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class InstanceLease {
+
+    @Id
+    @Column(name = "lease_name", length = 50)
+    private String leaseName;
+
+    @Column(name = "instance_id", nullable = false, length = 36)
+    private String instanceId;
+
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt;
+}
@@ -0,0 +1,30 @@
+package com.microdonation.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Lease of a transaction id node (0-1023) by an application instance.
+ * A node whose lease has expired may be taken over by another instance.
+ */
+@Entity
+@Table(name = "transaction_id_nodes")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TransactionIdNode {
+
+    @Id
+    @Column(name = "node_id")
+    private Integer nodeId;
+
+    @Column(name = "instance_id", nullable = false, length = 36)
+    private String instanceId;
+
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt;
+}
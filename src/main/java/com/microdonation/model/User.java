@@ -8,6 +8,7 @@ import jakarta.validation.constraints.DecimalMin;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.ColumnDefault;
 import org.hibernate.annotations.CreationTimestamp;
 
 import java.math.BigDecimal;
@@ -49,7 +50,8 @@ public class User {
     @Column(nullable = false, length = 20)
     private String role = "USER"; // USER or ADMIN
 
-    // *** NEW FIELD: Wallet Balance ***
+    // Legacy wallet balance, carried into the wallet ledger as an OPENING entry when the
+    // user's wallet is opened; balances now live in wallet_transactions (see WalletService)
     @DecimalMin(value = "0.0", message = "Wallet balance cannot be negative")
     @Column(name = "wallet_balance", nullable = false, precision = 10, scale = 2)
     private BigDecimal walletBalance = BigDecimal.ZERO;
@@ -58,31 +60,14 @@ public class User {
     @Column(name = "join_date", nullable = false, updatable = false)
     private LocalDateTime joinDate;
 
+    @Version
+    @ColumnDefault("0")
+    @Column(nullable = false)
+    private Long version = 0L;
+
     @OneToMany(mappedBy = "user", cascade = CascadeType.ALL, fetch = FetchType.LAZY)
     private List<Donation> donations = new ArrayList<>();
 
     @OneToMany(mappedBy = "creator", cascade = CascadeType.ALL, fetch = FetchType.LAZY)
     private List<Campaign> createdCampaigns = new ArrayList<>();
-
-    // *** NEW METHOD: Add money to wallet ***
-    public void addToWallet(BigDecimal amount) {
-        if (amount != null && amount.compareTo(BigDecimal.ZERO) > 0) {
-            this.walletBalance = this.walletBalance.add(amount);
-        }
-    }
-
-    // *** NEW METHOD: Deduct money from wallet ***
-    public boolean deductFromWallet(BigDecimal amount) {
-        if (amount != null && amount.compareTo(BigDecimal.ZERO) > 0 &&
-                this.walletBalance.compareTo(amount) >= 0) {
-            this.walletBalance = this.walletBalance.subtract(amount);
-            return true;
-        }
-        return false;
-    }
-
-    // *** NEW METHOD: Check if user has sufficient balance ***
-    public boolean hasSufficientBalance(BigDecimal amount) {
-        return amount != null && this.walletBalance.compareTo(amount) >= 0;
-    }
 }
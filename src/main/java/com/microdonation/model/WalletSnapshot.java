@@ -0,0 +1,35 @@
+package com.microdonation.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Wallet balance of a user as of ledger entry seq (0 = no entries yet).
+ * The current balance is this balance plus the entries after seq and the credits without a seq.
+ * The row also serves as the per-user lock taken by debits and snapshots.
+ */
+@Entity
+@Table(name = "wallet_snapshots")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class WalletSnapshot {
+
+    @Id
+    @Column(name = "user_id")
+    private Long userId;
+
+    @Column(nullable = false)
+    private Long seq = 0L;
+
+    @Column(nullable = false, precision = 10, scale = 2)
+    private BigDecimal balance = BigDecimal.ZERO;
+
+    @Column(name = "taken_at", nullable = false)
+    private LocalDateTime takenAt;
+}
@@ -0,0 +1,53 @@
+package com.microdonation.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Append-only wallet ledger entry. Entries of a user are numbered 1, 2, 3, ... by seq;
+ * amount is signed (debits are negative), so a balance is the sum of the user's entries.
+ * A credit is added without a seq and is given the next one when a snapshot takes it in.
+ */
+@Entity
+@Table(name = "wallet_transactions",
+        uniqueConstraints = @UniqueConstraint(name = "uk_wallet_transactions_user_seq", columnNames = {"user_id", "seq"}))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class WalletTransaction {
+
+    public static final String OPENING = "OPENING"; // balance carried over from users.wallet_balance
+    public static final String CREDIT = "CREDIT";
+    public static final String DEBIT = "DEBIT";
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "wallet_transaction_seq")
+    @SequenceGenerator(name = "wallet_transaction_seq", sequenceName = "wallet_transaction_seq", allocationSize = 50)
+    @Column(name = "entry_id")
+    private Long entryId;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column
+    private Long seq; // null for a credit not yet taken into a snapshot
+
+    @Column(name = "entry_type", nullable = false, length = 10)
+    private String type;
+
+    @Column(nullable = false, precision = 10, scale = 2)
+    private BigDecimal amount;
+
+    @Column(length = 50)
+    private String reference; // the donation or top-up transaction id
+
+    @CreationTimestamp
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+}
@@ -1,16 +1,32 @@
 package com.microdonation.repository;
 
+import com.microdonation.dto.CampaignDTO;
 import com.microdonation.model.Campaign;
 import com.microdonation.model.User;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface CampaignRepository extends JpaRepository<Campaign, Long> {
 
+    String DTO_SELECT = "SELECT new com.microdonation.dto.CampaignDTO(c.campaignId, c.title, c.description, " +
+            "c.goalAmount, c.raisedAmount, c.startDate, c.endDate, c.status, u.userId, u.name) " +
+            "FROM Campaign c JOIN c.creator u ";
+
     List<Campaign> findByStatus(String status);
 
     List<Campaign> findByCreator(User creator);
@@ -22,4 +38,62 @@ public interface CampaignRepository extends JpaRepository<Campaign, Long> {
 
     @Query("SELECT c FROM Campaign c ORDER BY c.raisedAmount DESC")
     List<Campaign> findTopFundedCampaigns();
+
+    // CampaignDTO projections: campaign columns plus the creator's name in a single statement
+
+    @Query(DTO_SELECT + "WHERE c.campaignId = :campaignId")
+    Optional<CampaignDTO> findDTOById(@Param("campaignId") Long campaignId);
+
+    @Query(DTO_SELECT)
+    List<CampaignDTO> findAllDTOs();
+
+    @Query(DTO_SELECT + "WHERE c.status = 'ACTIVE' AND c.endDate >= :today ORDER BY c.createdAt DESC")
+    List<CampaignDTO> findActiveDTOs(@Param("today") LocalDate today);
+
+    @Query(DTO_SELECT + "WHERE u.userId = :userId")
+    List<CampaignDTO> findDTOsByCreator(@Param("userId") Long userId);
+
+    @Query(DTO_SELECT + "WHERE c.campaignId IN :ids")
+    List<CampaignDTO> findDTOsByIds(@Param("ids") Collection<Long> ids);
+
+    // Rows of (campaignId, title, description) for the search index
+    @Query("SELECT c.campaignId, c.title, c.description FROM Campaign c")
+    List<Object[]> findSearchDocuments();
+
+    // Keyset pagination, newest first: (created_at, campaign_id) descending, seeking with a row-value comparison
+
+    @Query("SELECT c FROM Campaign c JOIN FETCH c.creator ORDER BY c.createdAt DESC, c.campaignId DESC")
+    Slice<Campaign> findPage(Pageable pageable);
+
+    @Query("SELECT c FROM Campaign c JOIN FETCH c.creator " +
+            "WHERE (c.createdAt, c.campaignId) < (:createdAt, :id) " +
+            "ORDER BY c.createdAt DESC, c.campaignId DESC")
+    Slice<Campaign> findPageAfter(@Param("createdAt") LocalDateTime createdAt, @Param("id") Long id, Pageable pageable);
+
+    /**
+     * Load and lock campaigns (SELECT ... FOR UPDATE), in id order so concurrent batches lock in the same order
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT c FROM Campaign c WHERE c.campaignId IN :ids ORDER BY c.campaignId")
+    List<Campaign> findAllByIdForUpdate(@Param("ids") Collection<Long> ids);
+
+    @Modifying
+    @Query("UPDATE Campaign c SET c.raisedAmount = c.raisedAmount + :delta, c.version = c.version + 1 " +
+            "WHERE c.campaignId = :campaignId")
+    int addToRaisedAmount(@Param("campaignId") Long campaignId, @Param("delta") BigDecimal delta);
+
+    @Modifying
+    @Query("UPDATE Campaign c SET c.status = 'COMPLETED', c.version = c.version + 1 " +
+            "WHERE c.campaignId = :campaignId AND c.status = 'ACTIVE' AND c.raisedAmount >= c.goalAmount")
+    int markCompletedIfGoalReached(@Param("campaignId") Long campaignId);
+
+    @Modifying
+    @Query("UPDATE Campaign c SET c.raisedAmount = COALESCE((SELECT SUM(d.amount) FROM Donation d " +
+            "WHERE d.campaign = c AND d.paymentStatus = 'PAID'), 0), c.version = c.version + 1")
+    int recomputeRaisedAmounts();
+
+    @Modifying
+    @Query("UPDATE Campaign c SET c.status = 'COMPLETED', c.version = c.version + 1 " +
+            "WHERE c.status = 'ACTIVE' AND c.raisedAmount >= c.goalAmount")
+    int markAllCompletedIfGoalReached();
 }
@@ -0,0 +1,98 @@
+package com.microdonation.repository;
+
+import com.microdonation.model.CampaignStats;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface CampaignStatsRepository extends JpaRepository<CampaignStats, Long> {
+
+    /**
+     * Apply a set of newly paid donations to a campaign's totals in one atomic UPDATE
+     */
+    @Modifying
+    @Query("UPDATE CampaignStats s SET s.paidSum = s.paidSum + :amount, " +
+            "s.paidCount = s.paidCount + :count, " +
+            "s.donorCount = s.donorCount + :newDonors, " +
+            "s.maxDonation = CASE WHEN s.maxDonation IS NULL OR s.maxDonation < :maxAmount " +
+            "THEN :maxAmount ELSE s.maxDonation END, " +
+            "s.lastDonationAt = CASE WHEN s.lastDonationAt IS NULL OR s.lastDonationAt < :donatedAt " +
+            "THEN :donatedAt ELSE s.lastDonationAt END " +
+            "WHERE s.campaignId = :campaignId")
+    int addDonations(@Param("campaignId") Long campaignId,
+                     @Param("amount") BigDecimal amount,
+                     @Param("count") long count,
+                     @Param("newDonors") long newDonors,
+                     @Param("maxAmount") BigDecimal maxAmount,
+                     @Param("donatedAt") LocalDateTime donatedAt);
+
+    /**
+     * Insert the stats row of one campaign, computed from its PAID donations
+     */
+    @Modifying
+    @Query("INSERT INTO CampaignStats (campaignId, paidSum, paidCount, donorCount, maxDonation, lastDonationAt) " +
+            "SELECT c.campaignId, COALESCE(SUM(d.amount), 0), COUNT(d), COUNT(DISTINCT d.user.userId), " +
+            "MAX(d.amount), MAX(d.donationDate) " +
+            "FROM Campaign c LEFT JOIN c.donations d ON d.paymentStatus = 'PAID' " +
+            "WHERE c.campaignId = :campaignId GROUP BY c.campaignId")
+    int insertComputed(@Param("campaignId") Long campaignId);
+
+    /**
+     * Insert the stats row of one campaign computed from its PAID donations, or, if a concurrent
+     * transaction inserted the row first, add the given donations to it as addDonations() does
+     */
+    @Modifying
+    @Query(value = "INSERT INTO campaign_stats (campaign_id, paid_sum, paid_count, donor_count, max_donation, last_donation_at) " +
+            "SELECT c.campaign_id, COALESCE(SUM(d.amount), 0), COUNT(d.donation_id), COUNT(DISTINCT d.user_id), " +
+            "MAX(d.amount), MAX(d.donation_date) " +
+            "FROM campaigns c LEFT JOIN donations d ON d.campaign_id = c.campaign_id AND d.payment_status = 'PAID' " +
+            "WHERE c.campaign_id = :campaignId GROUP BY c.campaign_id " +
+            "ON DUPLICATE KEY UPDATE paid_sum = campaign_stats.paid_sum + :amount, " +
+            "paid_count = campaign_stats.paid_count + :count, " +
+            "donor_count = campaign_stats.donor_count + :newDonors, " +
+            "max_donation = CASE WHEN campaign_stats.max_donation IS NULL OR campaign_stats.max_donation < :maxAmount " +
+            "THEN :maxAmount ELSE campaign_stats.max_donation END, " +
+            "last_donation_at = CASE WHEN campaign_stats.last_donation_at IS NULL OR campaign_stats.last_donation_at < :donatedAt " +
+            "THEN :donatedAt ELSE campaign_stats.last_donation_at END",
+            nativeQuery = true)
+    int insertComputedOrAdd(@Param("campaignId") Long campaignId,
+                            @Param("amount") BigDecimal amount,
+                            @Param("count") long count,
+                            @Param("newDonors") long newDonors,
+                            @Param("maxAmount") BigDecimal maxAmount,
+                            @Param("donatedAt") LocalDateTime donatedAt);
+
+    /**
+     * Lock a campaign's stats row until the transaction ends
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM CampaignStats s WHERE s.campaignId = :campaignId")
+    Optional<CampaignStats> findForUpdate(@Param("campaignId") Long campaignId);
+
+    /**
+     * Row of (paid sum, paid count, distinct donors, max donation, last donation) of a campaign's PAID donations
+     */
+    @Query("SELECT COALESCE(SUM(d.amount), 0), COUNT(d), COUNT(DISTINCT d.user.userId), MAX(d.amount), MAX(d.donationDate) " +
+            "FROM Donation d WHERE d.campaign.campaignId = :campaignId AND d.paymentStatus = 'PAID'")
+    List<Object[]> computeTotals(@Param("campaignId") Long campaignId);
+
+    @Query("SELECT c.campaignId FROM Campaign c ORDER BY c.campaignId")
+    List<Long> findCampaignIds();
+
+    /**
+     * Remove stats rows left behind by deleted campaigns
+     */
+    @Modifying
+    @Query("DELETE FROM CampaignStats s WHERE s.campaignId NOT IN (SELECT c.campaignId FROM Campaign c)")
+    int deleteOrphans();
+}
@@ -3,23 +3,46 @@ package com.microdonation.repository;
 import com.microdonation.model.Campaign;
 import com.microdonation.model.Donation;
 import com.microdonation.model.User;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface DonationRepository extends JpaRepository<Donation, Long> {
 
+    // Donor and campaign are fetched with the donation so DTO conversion needs no further queries
+
+    @Override
+    @EntityGraph(attributePaths = {"user", "campaign"})
+    List<Donation> findAll();
+
+    @Override
+    @EntityGraph(attributePaths = {"user", "campaign"})
+    Optional<Donation> findById(Long id);
+
     List<Donation> findByUser(User user);
 
+    @EntityGraph(attributePaths = {"user", "campaign"})
     List<Donation> findByUserUserId(Long userId);
 
     List<Donation> findByCampaign(Campaign campaign);
 
+    @EntityGraph(attributePaths = {"user", "campaign"})
     List<Donation> findByCampaignCampaignId(Long campaignId);
 
     List<Donation> findByPaymentStatus(String paymentStatus);
@@ -32,4 +55,93 @@ public interface DonationRepository extends JpaRepository<Donation, Long> {
 
     @Query("SELECT d FROM Donation d WHERE d.campaign.campaignId = :campaignId ORDER BY d.amount DESC")
     List<Donation> findTopDonorsByCampaign(@Param("campaignId") Long campaignId);
+
+    @Query("SELECT d FROM Donation d JOIN FETCH d.user JOIN FETCH d.campaign WHERE d.transactionId = :transactionId")
+    Optional<Donation> findByTransactionId(@Param("transactionId") String transactionId);
+
+    // Donor lookups used to maintain the distinct donor counts in campaign_stats and donation_rollups
+
+    @Query("SELECT d.campaign.campaignId, d.user.userId, MAX(d.donationDate) FROM Donation d " +
+            "WHERE d.campaign.campaignId IN :campaignIds AND d.user.userId IN :userIds AND d.paymentStatus = 'PAID' " +
+            "GROUP BY d.campaign.campaignId, d.user.userId")
+    List<Object[]> findLastPaidDonations(@Param("campaignIds") Collection<Long> campaignIds,
+                                         @Param("userIds") Collection<Long> userIds);
+
+    // Export job de-duplication: (count, PAID count, latest donation date) of a user's donations
+
+    @Query("SELECT COUNT(d), SUM(CASE WHEN d.paymentStatus = 'PAID' THEN 1 ELSE 0 END), MAX(d.donationDate) " +
+            "FROM Donation d WHERE d.user.userId = :userId")
+    List<Object[]> findDonationCountAndLatestByUser(@Param("userId") Long userId);
+
+    // User report export: (count, PAID total) for the summary, then the history newest first,
+    // read through a cursor (fetch size 500) so it is never held in memory as a whole
+
+    @Query("SELECT COUNT(d), COALESCE(SUM(CASE WHEN d.paymentStatus = 'PAID' THEN d.amount ELSE 0 END), 0) " +
+            "FROM Donation d WHERE d.user.userId = :userId")
+    List<Object[]> findDonationTotalsByUser(@Param("userId") Long userId);
+
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT d FROM Donation d JOIN FETCH d.user JOIN FETCH d.campaign WHERE d.user.userId = :userId " +
+            "ORDER BY d.donationDate DESC, d.donationId DESC")
+    Stream<Donation> streamHistoryByUser(@Param("userId") Long userId);
+
+    // Rollup rebuild: (userId, amount, donationDate) of a campaign's PAID donations in date order
+
+    @Query("SELECT DISTINCT d.campaign.campaignId FROM Donation d WHERE d.paymentStatus = 'PAID'")
+    List<Long> findPaidCampaignIds();
+
+    @Query("SELECT d.user.userId, d.amount, d.donationDate FROM Donation d " +
+            "WHERE d.campaign.campaignId = :campaignId AND d.paymentStatus = 'PAID' ORDER BY d.donationDate, d.donationId")
+    List<Object[]> findPaidEntriesByCampaign(@Param("campaignId") Long campaignId);
+
+    // Report queries: only the N rows the report shows, with the donor fetched in the same statement
+
+    @Query("SELECT d FROM Donation d JOIN FETCH d.user " +
+            "WHERE d.campaign.campaignId = :campaignId AND d.paymentStatus = 'PAID' " +
+            "ORDER BY d.amount DESC, d.donationId DESC")
+    List<Donation> findTopPaidByCampaign(@Param("campaignId") Long campaignId, Limit limit);
+
+    @Query("SELECT d FROM Donation d JOIN FETCH d.user " +
+            "WHERE d.campaign.campaignId = :campaignId AND d.paymentStatus = 'PAID' " +
+            "ORDER BY d.donationDate DESC, d.donationId DESC")
+    List<Donation> findRecentPaidByCampaign(@Param("campaignId") Long campaignId, Limit limit);
+
+    // Keyset pagination, newest first: (donation_date, donation_id) descending, with donor and campaign fetched.
+    // Later pages seek with a row-value comparison, which MySQL turns into a single index range.
+
+    @Query("SELECT d FROM Donation d JOIN FETCH d.user JOIN FETCH d.campaign " +
+            "ORDER BY d.donationDate DESC, d.donationId DESC")
+    Slice<Donation> findPage(Pageable pageable);
+
+    @Query("SELECT d FROM Donation d JOIN FETCH d.user JOIN FETCH d.campaign " +
+            "WHERE (d.donationDate, d.donationId) < (:date, :id) " +
+            "ORDER BY d.donationDate DESC, d.donationId DESC")
+    Slice<Donation> findPageAfter(@Param("date") LocalDateTime date, @Param("id") Long id, Pageable pageable);
+
+    @Query("SELECT d FROM Donation d JOIN FETCH d.user JOIN FETCH d.campaign " +
+            "WHERE d.campaign.campaignId = :campaignId " +
+            "ORDER BY d.donationDate DESC, d.donationId DESC")
+    Slice<Donation> findPageByCampaign(@Param("campaignId") Long campaignId, Pageable pageable);
+
+    @Query("SELECT d FROM Donation d JOIN FETCH d.user JOIN FETCH d.campaign " +
+            "WHERE d.campaign.campaignId = :campaignId " +
+            "AND (d.donationDate, d.donationId) < (:date, :id) " +
+            "ORDER BY d.donationDate DESC, d.donationId DESC")
+    Slice<Donation> findPageByCampaignAfter(@Param("campaignId") Long campaignId, @Param("date") LocalDateTime date,
+                                            @Param("id") Long id, Pageable pageable);
+
+    @Query("SELECT d FROM Donation d JOIN FETCH d.user JOIN FETCH d.campaign " +
+            "WHERE d.user.userId = :userId " +
+            "ORDER BY d.donationDate DESC, d.donationId DESC")
+    Slice<Donation> findPageByUser(@Param("userId") Long userId, Pageable pageable);
+
+    @Query("SELECT d FROM Donation d JOIN FETCH d.user JOIN FETCH d.campaign " +
+            "WHERE d.user.userId = :userId " +
+            "AND (d.donationDate, d.donationId) < (:date, :id) " +
+            "ORDER BY d.donationDate DESC, d.donationId DESC")
+    Slice<Donation> findPageByUserAfter(@Param("userId") Long userId, @Param("date") LocalDateTime date,
+                                        @Param("id") Long id, Pageable pageable);
 }
@@ -0,0 +1,46 @@
+package com.microdonation.repository;
+
+import com.microdonation.model.DonationRollup;
+import com.microdonation.model.DonationRollupId;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface DonationRollupRepository extends JpaRepository<DonationRollup, DonationRollupId> {
+
+    /**
+     * Add donations to a bucket, creating it if needed, in one atomic statement.
+     * Native because JPQL has no upsert; an UPDATE-then-INSERT would race when two
+     * transactions open the same new bucket.
+     */
+    @Modifying
+    @Query(value = "INSERT INTO donation_rollups (campaign_id, granularity, bucket_start, paid_sum, paid_count, donor_count) " +
+            "VALUES (:campaignId, :granularity, :bucketStart, :amount, :count, :newDonors) " +
+            "ON DUPLICATE KEY UPDATE paid_sum = paid_sum + VALUES(paid_sum), " +
+            "paid_count = paid_count + VALUES(paid_count), " +
+            "donor_count = donor_count + VALUES(donor_count)", nativeQuery = true)
+    int addDonations(@Param("campaignId") Long campaignId,
+                     @Param("granularity") String granularity,
+                     @Param("bucketStart") LocalDateTime bucketStart,
+                     @Param("amount") BigDecimal amount,
+                     @Param("count") long count,
+                     @Param("newDonors") long newDonors);
+
+    @Query("SELECT r FROM DonationRollup r WHERE r.campaignId = :campaignId AND r.granularity = :granularity " +
+            "AND r.bucketStart >= :from AND r.bucketStart < :to ORDER BY r.bucketStart")
+    List<DonationRollup> findRange(@Param("campaignId") Long campaignId,
+                                   @Param("granularity") String granularity,
+                                   @Param("from") LocalDateTime from,
+                                   @Param("to") LocalDateTime to);
+
+    @Modifying
+    @Query("DELETE FROM DonationRollup r WHERE r.campaignId = :campaignId")
+    int deleteByCampaign(@Param("campaignId") Long campaignId);
+}
@@ -0,0 +1,63 @@
+package com.microdonation.repository;
+
+import com.microdonation.model.IdempotencyRecord;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+@Repository
+public interface IdempotencyRecordRepository extends JpaRepository<IdempotencyRecord, String> {
+
+    @Query("SELECT r FROM IdempotencyRecord r WHERE r.idempotencyKey = :key AND r.expiresAt > :now")
+    Optional<IdempotencyRecord> findUnexpired(@Param("key") String key, @Param("now") LocalDateTime now);
+
+    /**
+     * Claim a new key; fails on the primary key when the key is already claimed or completed.
+     * Native, so it never turns into an update of an existing row.
+     */
+    @Modifying
+    @Query(value = "INSERT INTO idempotency_keys (idempotency_key, fingerprint, state, owner_token, created_at, expires_at) " +
+            "VALUES (:key, :fingerprint, 'IN_PROGRESS', :ownerToken, :now, :expiresAt)", nativeQuery = true)
+    int insertClaim(@Param("key") String key, @Param("fingerprint") String fingerprint,
+                    @Param("ownerToken") String ownerToken, @Param("now") LocalDateTime now,
+                    @Param("expiresAt") LocalDateTime expiresAt);
+
+    /**
+     * Claim a key whose claim or stored response has expired but is not purged yet
+     */
+    @Modifying
+    @Query("UPDATE IdempotencyRecord r SET r.fingerprint = :fingerprint, r.state = 'IN_PROGRESS', " +
+            "r.ownerToken = :ownerToken, r.statusCode = NULL, r.contentType = NULL, r.responseBody = NULL, " +
+            "r.createdAt = :now, r.expiresAt = :expiresAt WHERE r.idempotencyKey = :key AND r.expiresAt <= :now")
+    int takeOverExpired(@Param("key") String key, @Param("fingerprint") String fingerprint,
+                        @Param("ownerToken") String ownerToken, @Param("now") LocalDateTime now,
+                        @Param("expiresAt") LocalDateTime expiresAt);
+
+    /**
+     * Store the response of a claimed key; 0 when the claim was released or taken over meanwhile
+     */
+    @Modifying
+    @Query("UPDATE IdempotencyRecord r SET r.state = 'COMPLETED', r.statusCode = :statusCode, " +
+            "r.contentType = :contentType, r.responseBody = :responseBody, r.expiresAt = :expiresAt " +
+            "WHERE r.idempotencyKey = :key AND r.ownerToken = :ownerToken AND r.state = 'IN_PROGRESS'")
+    int complete(@Param("key") String key, @Param("ownerToken") String ownerToken,
+                 @Param("statusCode") int statusCode, @Param("contentType") String contentType,
+                 @Param("responseBody") String responseBody, @Param("expiresAt") LocalDateTime expiresAt);
+
+    /**
+     * Drop a claim that was not completed, so the key can be retried
+     */
+    @Modifying
+    @Query("DELETE FROM IdempotencyRecord r WHERE r.idempotencyKey = :key AND r.ownerToken = :ownerToken " +
+            "AND r.state = 'IN_PROGRESS'")
+    int release(@Param("key") String key, @Param("ownerToken") String ownerToken);
+
+    @Modifying
+    @Query("DELETE FROM IdempotencyRecord r WHERE r.expiresAt <= :now")
+    int deleteExpired(@Param("now") LocalDateTime now);
+}
@@ -0,0 +1,42 @@
+package com.microdonation.repository;
+
+import com.microdonation.model.InstanceLease;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+
+@Repository
+public interface InstanceLeaseRepository extends JpaRepository<InstanceLease, String> {
+
+    /**
+     * Take (or extend) a lease that has expired or is already this instance's;
+     * returns 0 while another instance holds it or when the lease was never taken
+     */
+    @Modifying
+    @Query("UPDATE InstanceLease l SET l.instanceId = :instanceId, l.expiresAt = :expiresAt " +
+            "WHERE l.leaseName = :leaseName AND (l.expiresAt < :now OR l.instanceId = :instanceId)")
+    int claim(@Param("leaseName") String leaseName, @Param("instanceId") String instanceId,
+              @Param("expiresAt") LocalDateTime expiresAt, @Param("now") LocalDateTime now);
+
+    /**
+     * Add a lease that was never taken; fails on the primary key when another instance added it first.
+     * Native, so it never turns into an update of an existing row.
+     */
+    @Modifying
+    @Query(value = "INSERT INTO instance_leases (lease_name, instance_id, expires_at) " +
+            "VALUES (:leaseName, :instanceId, :expiresAt)", nativeQuery = true)
+    int insertLease(@Param("leaseName") String leaseName, @Param("instanceId") String instanceId,
+                    @Param("expiresAt") LocalDateTime expiresAt);
+
+    /**
+     * Give up a lease this instance holds
+     */
+    @Modifying
+    @Query("UPDATE InstanceLease l SET l.expiresAt = :now WHERE l.leaseName = :leaseName AND l.instanceId = :instanceId")
+    int release(@Param("leaseName") String leaseName, @Param("instanceId") String instanceId,
+                @Param("now") LocalDateTime now);
+}
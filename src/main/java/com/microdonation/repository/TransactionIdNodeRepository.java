@@ -0,0 +1,51 @@
+package com.microdonation.repository;
+
+import com.microdonation.model.TransactionIdNode;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface TransactionIdNodeRepository extends JpaRepository<TransactionIdNode, Integer> {
+
+    @Query("SELECT n.nodeId FROM TransactionIdNode n WHERE n.expiresAt < :now ORDER BY n.nodeId")
+    List<Integer> findExpiredNodeIds(@Param("now") LocalDateTime now, Pageable pageable);
+
+    @Query("SELECT MAX(n.nodeId) FROM TransactionIdNode n")
+    Optional<Integer> findMaxNodeId();
+
+    /**
+     * Take over an expired node; returns 0 when another instance got it first
+     */
+    @Modifying
+    @Query("UPDATE TransactionIdNode n SET n.instanceId = :instanceId, n.expiresAt = :expiresAt " +
+            "WHERE n.nodeId = :nodeId AND n.expiresAt < :now")
+    int claimExpired(@Param("nodeId") Integer nodeId, @Param("instanceId") String instanceId,
+                     @Param("expiresAt") LocalDateTime expiresAt, @Param("now") LocalDateTime now);
+
+    /**
+     * Add a node that was never leased; fails on the primary key when another instance added it first.
+     * Native, so it never turns into an update of an existing row.
+     */
+    @Modifying
+    @Query(value = "INSERT INTO transaction_id_nodes (node_id, instance_id, expires_at) " +
+            "VALUES (:nodeId, :instanceId, :expiresAt)", nativeQuery = true)
+    int insertNode(@Param("nodeId") Integer nodeId, @Param("instanceId") String instanceId,
+                   @Param("expiresAt") LocalDateTime expiresAt);
+
+    /**
+     * Extend (or, with a past expiresAt, give up) a lease this instance holds; returns 0 when it lost it
+     */
+    @Modifying
+    @Query("UPDATE TransactionIdNode n SET n.expiresAt = :expiresAt " +
+            "WHERE n.nodeId = :nodeId AND n.instanceId = :instanceId")
+    int updateExpiry(@Param("nodeId") Integer nodeId, @Param("instanceId") String instanceId,
+                     @Param("expiresAt") LocalDateTime expiresAt);
+}
@@ -0,0 +1,68 @@
+package com.microdonation.repository;
+
+import com.microdonation.model.WalletSnapshot;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface WalletSnapshotRepository extends JpaRepository<WalletSnapshot, Long> {
+
+    String BALANCE_SELECT = "SELECT s.userId, s.balance + COALESCE(SUM(t.amount), 0) FROM WalletSnapshot s " +
+            "LEFT JOIN WalletTransaction t ON t.userId = s.userId AND (t.seq > s.seq OR t.seq IS NULL) ";
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM WalletSnapshot s WHERE s.userId = :userId")
+    Optional<WalletSnapshot> findForUpdate(@Param("userId") Long userId);
+
+    /**
+     * Current balance: the snapshot plus the entries after it and the unsequenced credits, in one statement
+     */
+    @Query("SELECT s.balance + COALESCE(SUM(t.amount), 0) FROM WalletSnapshot s " +
+            "LEFT JOIN WalletTransaction t ON t.userId = s.userId AND (t.seq > s.seq OR t.seq IS NULL) " +
+            "WHERE s.userId = :userId GROUP BY s.userId, s.balance")
+    Optional<BigDecimal> findBalance(@Param("userId") Long userId);
+
+    /**
+     * Current balances as [userId, balance] rows
+     */
+    @Query(BALANCE_SELECT + "WHERE s.userId IN :userIds GROUP BY s.userId, s.balance")
+    List<Object[]> findBalances(@Param("userIds") Collection<Long> userIds);
+
+    @Query(BALANCE_SELECT + "GROUP BY s.userId, s.balance")
+    List<Object[]> findAllBalances();
+
+    /**
+     * Users with at least minTail ledger entries after their snapshot, unsequenced credits included
+     */
+    @Query("SELECT s.userId FROM WalletSnapshot s " +
+            "JOIN WalletTransaction t ON t.userId = s.userId AND (t.seq > s.seq OR t.seq IS NULL) " +
+            "GROUP BY s.userId HAVING COUNT(t) >= :minTail")
+    List<Long> findUserIdsWithTailOf(@Param("minTail") long minTail);
+
+    /**
+     * Users without a wallet yet, as [userId, legacy wallet_balance] rows
+     */
+    @Query("SELECT u.userId, u.walletBalance FROM User u " +
+            "WHERE NOT EXISTS (SELECT 1 FROM WalletSnapshot s WHERE s.userId = u.userId)")
+    List<Object[]> findUsersWithoutWallet();
+
+    /**
+     * Open the wallet of every user without one, from the legacy users.wallet_balance column
+     * (a positive balance is covered by the OPENING entry with seq 1)
+     */
+    @Modifying
+    @Query("INSERT INTO WalletSnapshot (userId, seq, balance, takenAt) " +
+            "SELECT u.userId, CASE WHEN u.walletBalance > 0 THEN 1L ELSE 0L END, u.walletBalance, CURRENT_TIMESTAMP " +
+            "FROM User u WHERE NOT EXISTS (SELECT 1 FROM WalletSnapshot s WHERE s.userId = u.userId)")
+    int insertMissing();
+}
@@ -0,0 +1,38 @@
+package com.microdonation.repository;
+
+import com.microdonation.model.WalletTransaction;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+@Repository
+public interface WalletTransactionRepository extends JpaRepository<WalletTransaction, Long> {
+
+    /**
+     * Sequenced entries of a user after the given seq, in order.
+     * A locking read, so it sees entries committed after the current transaction started.
+     */
+    @Lock(LockModeType.PESSIMISTIC_READ)
+    @Query("SELECT t FROM WalletTransaction t WHERE t.userId = :userId AND t.seq > :afterSeq ORDER BY t.seq")
+    List<WalletTransaction> findTail(@Param("userId") Long userId, @Param("afterSeq") Long afterSeq);
+
+    /**
+     * Credits of a user that no snapshot has sequenced yet
+     */
+    @Query("SELECT t FROM WalletTransaction t WHERE t.userId = :userId AND t.seq IS NULL ORDER BY t.entryId")
+    List<WalletTransaction> findUnsequenced(@Param("userId") Long userId);
+
+    @Query("SELECT COALESCE(SUM(t.amount), 0) FROM WalletTransaction t WHERE t.userId = :userId AND t.seq IS NULL")
+    BigDecimal sumUnsequenced(@Param("userId") Long userId);
+
+    @Modifying
+    @Query("DELETE FROM WalletTransaction t WHERE t.userId = :userId")
+    int deleteByUserId(@Param("userId") Long userId);
+}
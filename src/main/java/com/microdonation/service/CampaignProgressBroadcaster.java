@@ -0,0 +1,245 @@
+package com.microdonation.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.microdonation.dto.CampaignDTO;
+import com.microdonation.dto.CampaignProgressDTO;
+import com.microdonation.dto.CampaignStatsDTO;
+import com.microdonation.dto.DonationDTO;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Fans out live campaign progress to Server-Sent Events subscribers.
+ *
+ * Committed donations only mark their campaign as changed (keeping the newest donation);
+ * every push interval each changed campaign with subscribers is read once, serialized once
+ * and written to all of its emitters, so a burst of donations becomes a single event and
+ * the cost of a push does not depend on how many donations came in. Emitters are async
+ * requests, so an idle subscriber holds a connection but no request thread.
+ *
+ * The scheduler only hands events over; writes run on the application task executor, one
+ * at a time per subscriber. A subscriber that falls behind keeps just its newest pending
+ * event, so a slow client delays only itself and never builds up a backlog.
+ */
+@Slf4j
+@Component
+public class CampaignProgressBroadcaster {
+
+    private static final String EVENT_NAME = "progress";
+    private static final String HEARTBEAT = new String("heartbeat"); // compared by identity
+
+    private final Map<Long, Set<Subscriber>> subscribers = new ConcurrentHashMap<>();
+    private final Map<Long, DonationDTO> changed = new ConcurrentHashMap<>();
+    private final AtomicInteger subscriberCount = new AtomicInteger();
+
+    private final CampaignService campaignService;
+    private final CampaignStatsService campaignStatsService;
+    private final ObjectMapper objectMapper;
+    private final TaskExecutor taskExecutor;
+    private final long emitterTimeoutMs;
+
+    public CampaignProgressBroadcaster(CampaignService campaignService,
+                                       CampaignStatsService campaignStatsService,
+                                       ObjectMapper objectMapper,
+                                       MeterRegistry meterRegistry,
+                                       @Qualifier("applicationTaskExecutor") TaskExecutor taskExecutor,
+                                       @Value("${campaign.live.emitter-timeout-ms:1800000}") long emitterTimeoutMs) {
+        this.campaignService = campaignService;
+        this.campaignStatsService = campaignStatsService;
+        this.objectMapper = objectMapper;
+        this.taskExecutor = taskExecutor;
+        this.emitterTimeoutMs = emitterTimeoutMs;
+        Gauge.builder("campaign.live.subscribers", subscriberCount, AtomicInteger::get)
+                .description("Open live progress connections")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Open a live progress stream for a campaign, starting with its current progress
+     */
+    public SseEmitter subscribe(Long campaignId) {
+        String snapshot = render(progressOf(campaignId, null));
+
+        SseEmitter emitter = new SseEmitter(emitterTimeoutMs);
+        Subscriber subscriber = new Subscriber(emitter);
+        // Added inside compute() so heartbeat() cannot drop the set in between
+        Set<Subscriber> campaignSubscribers = subscribers.compute(campaignId, (id, existing) -> {
+            Set<Subscriber> set = existing != null ? existing : ConcurrentHashMap.newKeySet();
+            set.add(subscriber);
+            return set;
+        });
+        subscriberCount.incrementAndGet();
+        Runnable remove = () -> {
+            if (campaignSubscribers.remove(subscriber)) {
+                subscriberCount.decrementAndGet();
+            }
+        };
+        emitter.onCompletion(remove);
+        emitter.onTimeout(remove);
+        emitter.onError(e -> remove.run());
+
+        offer(subscriber, snapshot);
+        return emitter;
+    }
+
+    /**
+     * Record a donation to be pushed once the current transaction commits
+     */
+    public void donationCommitted(DonationDTO donation) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    changed.put(donation.getCampaignId(), donation);
+                }
+            });
+        } else {
+            changed.put(donation.getCampaignId(), donation);
+        }
+    }
+
+    /**
+     * Push one coalesced update per changed campaign to its subscribers
+     */
+    @Scheduled(fixedDelayString = "${campaign.live.push-interval-ms:500}")
+    public void push() {
+        for (Long campaignId : changed.keySet()) {
+            // A donation committed after this remove stays pending for the next push
+            DonationDTO latest = changed.remove(campaignId);
+            Set<Subscriber> campaignSubscribers = subscribers.get(campaignId);
+            if (latest == null || campaignSubscribers == null || campaignSubscribers.isEmpty()) {
+                continue;
+            }
+            try {
+                String event = render(progressOf(campaignId, latest));
+                campaignSubscribers.forEach(subscriber -> offer(subscriber, event));
+            } catch (RuntimeException e) {
+                log.warn("Failed to push live progress of campaign {}", campaignId, e);
+            }
+        }
+    }
+
+    /**
+     * Write a comment to every subscriber so connections dropped by the client are noticed and released
+     */
+    @Scheduled(fixedDelayString = "${campaign.live.heartbeat-interval-ms:15000}")
+    public void heartbeat() {
+        for (Long campaignId : subscribers.keySet()) {
+            // Dropped atomically with respect to subscribe(), which adds inside compute()
+            Set<Subscriber> campaignSubscribers = subscribers.computeIfPresent(campaignId,
+                    (id, existing) -> existing.isEmpty() ? null : existing);
+            if (campaignSubscribers != null) {
+                // Any pending event serves as the heartbeat
+                campaignSubscribers.forEach(subscriber -> {
+                    if (subscriber.pending.compareAndSet(null, HEARTBEAT)) {
+                        schedule(subscriber);
+                    }
+                });
+            }
+        }
+    }
+
+    private CampaignProgressDTO progressOf(Long campaignId, DonationDTO latest) {
+        CampaignDTO campaign = campaignService.getCampaignById(campaignId);
+        CampaignStatsDTO stats = campaignStatsService.getStats(campaignId);
+        CampaignProgressDTO progress = new CampaignProgressDTO();
+        progress.setCampaignId(campaignId);
+        progress.setRaisedAmount(campaign.getRaisedAmount());
+        progress.setGoalAmount(campaign.getGoalAmount());
+        progress.setProgressPercentage(campaign.getProgressPercentage());
+        progress.setStatus(campaign.getStatus());
+        progress.setTotalDonations(stats.getTotalDonations());
+        progress.setTotalDonors(stats.getTotalDonors());
+        if (latest != null) {
+            progress.setLatestDonorName(latest.getUserName());
+            progress.setLatestAmount(latest.getAmount());
+            progress.setLatestPaymentMode(latest.getPaymentMode());
+            progress.setLatestDonationDate(latest.getDonationDate());
+        }
+        return progress;
+    }
+
+    private String render(CampaignProgressDTO progress) {
+        try {
+            return objectMapper.writeValueAsString(progress);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Make an event the subscriber's next write, replacing any event not yet written
+     */
+    private void offer(Subscriber subscriber, String event) {
+        subscriber.pending.set(event);
+        schedule(subscriber);
+    }
+
+    private void schedule(Subscriber subscriber) {
+        if (subscriber.sending.compareAndSet(false, true)) {
+            try {
+                taskExecutor.execute(() -> drain(subscriber));
+            } catch (RuntimeException e) {
+                subscriber.sending.set(false);
+                log.warn("Could not schedule a live progress write", e);
+            }
+        }
+    }
+
+    private void drain(Subscriber subscriber) {
+        while (true) {
+            String event = subscriber.pending.getAndSet(null);
+            if (event == null) {
+                subscriber.sending.set(false);
+                // An event offered after getAndSet but before the flag was cleared is sent by this run
+                if (subscriber.pending.get() == null || !subscriber.sending.compareAndSet(false, true)) {
+                    return;
+                }
+                continue;
+            }
+            send(subscriber.emitter, event);
+        }
+    }
+
+    private void send(SseEmitter emitter, String event) {
+        try {
+            if (event == HEARTBEAT) {
+                emitter.send(SseEmitter.event().comment(HEARTBEAT));
+            } else {
+                emitter.send(SseEmitter.event().name(EVENT_NAME).data(event, MediaType.APPLICATION_JSON));
+            }
+        } catch (IOException | IllegalStateException e) {
+            // Client went away; completing the emitter removes it
+            emitter.completeWithError(e);
+        }
+    }
+
+    private static final class Subscriber {
+        private final SseEmitter emitter;
+        private final AtomicReference<String> pending = new AtomicReference<>(); // newest event not yet written
+        private final AtomicBoolean sending = new AtomicBoolean(); // a drain is scheduled or running
+
+        private Subscriber(SseEmitter emitter) {
+            this.emitter = emitter;
+        }
+    }
+}
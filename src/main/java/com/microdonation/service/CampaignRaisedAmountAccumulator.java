@@ -0,0 +1,310 @@
+package com.microdonation.service;
+
+import com.microdonation.config.CacheConfig;
+import com.microdonation.model.Campaign;
+import com.microdonation.repository.CampaignRepository;
+import com.microdonation.repository.InstanceLeaseRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Striped in-memory accumulator for campaign raised amounts.
+ *
+ * Enabled with campaign.raised-amount.counter-mode=striped. Each committed donation
+ * is added to a per-campaign LongAdder (in paise) instead of rewriting the campaign
+ * row, and the combined delta is flushed to campaigns.raised_amount on a fixed
+ * interval or once the number of pending credits reaches the flush threshold.
+ *
+ * The donations table stays the source of truth: on startup raised_amount is
+ * recomputed from PAID donations, so credits that were committed but not yet
+ * flushed when the process died are not lost.
+ *
+ * That recompute would overwrite deltas another instance has not flushed yet, so
+ * striped mode runs on a single instance only. It is enforced with a lease in
+ * instance_leases: startup waits up to lease-seconds for the lease and fails if
+ * another instance still holds it. Should the lease be lost while running (it
+ * could not be renewed for lease-seconds and another instance took it), this
+ * instance stops flushing and needs a restart.
+ *
+ * Campaigns are only marked COMPLETED when a flush reaches the goal, so donations
+ * are checked against the campaign's raised amount plus its unflushed delta
+ * instead (see hasReachedGoal).
+ */
+@Slf4j
+@Component
+public class CampaignRaisedAmountAccumulator implements SmartInitializingSingleton {
+
+    private static final int AMOUNT_SCALE = 2;
+    private static final String LEASE_NAME = "campaign-raised-amount-striped";
+    private static final long LEASE_POLL_MS = 1000;
+
+    private final Map<Long, CampaignCounter> counters = new ConcurrentHashMap<>();
+    private final AtomicLong pendingCredits = new AtomicLong();
+    private final ReentrantLock flushLock = new ReentrantLock();
+    private final String instanceId = UUID.randomUUID().toString();
+
+    private final CampaignRepository campaignRepository;
+    private final InstanceLeaseRepository leaseRepository;
+    private final CacheManager cacheManager;
+    private final TransactionTemplate transactionTemplate;
+    private final TaskScheduler taskScheduler;
+    private final boolean enabled;
+    private final long flushThreshold;
+    private final long leaseSeconds;
+
+    private volatile LocalDateTime leaseExpiresAt;
+
+    public CampaignRaisedAmountAccumulator(CampaignRepository campaignRepository,
+                                           InstanceLeaseRepository leaseRepository,
+                                           CacheManager cacheManager,
+                                           PlatformTransactionManager transactionManager,
+                                           TaskScheduler taskScheduler,
+                                           @Value("${campaign.raised-amount.counter-mode:direct}") String counterMode,
+                                           @Value("${campaign.raised-amount.flush-threshold:500}") long flushThreshold,
+                                           @Value("${campaign.raised-amount.lease-seconds:30}") long leaseSeconds,
+                                           @Value("${campaign.raised-amount.lease-renew-ms:10000}") long renewIntervalMs) {
+        if (renewIntervalMs >= leaseSeconds * 1000) {
+            throw new IllegalArgumentException("campaign.raised-amount.lease-renew-ms must be shorter than campaign.raised-amount.lease-seconds");
+        }
+        this.campaignRepository = campaignRepository;
+        this.leaseRepository = leaseRepository;
+        this.cacheManager = cacheManager;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.taskScheduler = taskScheduler;
+        this.enabled = "striped".equalsIgnoreCase(counterMode);
+        this.flushThreshold = flushThreshold;
+        this.leaseSeconds = leaseSeconds;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Credit a donation amount to a campaign once the current transaction commits
+     */
+    public void credit(Long campaignId, BigDecimal amount) {
+        long paise = amount.setScale(AMOUNT_SCALE, RoundingMode.UNNECESSARY).unscaledValue().longValueExact();
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    add(campaignId, paise);
+                }
+            });
+        } else {
+            add(campaignId, paise);
+        }
+    }
+
+    /**
+     * Whether the campaign's raised amount, including credits not flushed yet, has reached its goal.
+     * A delta that is being flushed may briefly be counted twice, which errs towards closing the campaign.
+     */
+    public boolean hasReachedGoal(Campaign campaign) {
+        if (!enabled) {
+            return false;
+        }
+        CampaignCounter counter = counters.get(campaign.getCampaignId());
+        if (counter == null) {
+            return false;
+        }
+        BigDecimal unflushed = BigDecimal.valueOf(counter.credited.sum() - counter.flushed, AMOUNT_SCALE);
+        return campaign.getRaisedAmount().add(unflushed).compareTo(campaign.getGoalAmount()) >= 0;
+    }
+
+    /**
+     * Write the accumulated deltas to the campaigns table
+     */
+    @Scheduled(fixedDelayString = "${campaign.raised-amount.flush-interval-ms:250}")
+    public void flush() {
+        if (!enabled || !holdsLease() || !flushLock.tryLock()) {
+            return;
+        }
+        try {
+            flushPending();
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    /**
+     * Take the single-instance lease and recompute raised amounts from PAID donations
+     * before the application starts serving requests
+     */
+    @Override
+    public void afterSingletonsInstantiated() {
+        if (!enabled) {
+            return;
+        }
+        acquireLease();
+        transactionTemplate.executeWithoutResult(status -> {
+            int recomputed = campaignRepository.recomputeRaisedAmounts();
+            int completed = campaignRepository.markAllCompletedIfGoalReached();
+            log.info("Reconciled raised amount of {} campaigns from donations ({} newly completed)", recomputed, completed);
+        });
+    }
+
+    /**
+     * Extend the single-instance lease
+     */
+    @Scheduled(fixedDelayString = "${campaign.raised-amount.lease-renew-ms:10000}",
+            initialDelayString = "${campaign.raised-amount.lease-renew-ms:10000}")
+    public void renewLease() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            if (!tryClaimLease()) {
+                log.error("Another instance holds the striped counter lease; raised amounts are no longer " +
+                        "flushed from this instance, which needs a restart");
+            }
+        } catch (RuntimeException e) {
+            log.warn("Failed to renew the striped counter lease", e);
+        }
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        if (!enabled || !holdsLease()) {
+            return;
+        }
+        flushLock.lock();
+        try {
+            flushPending();
+        } finally {
+            flushLock.unlock();
+        }
+        try {
+            transactionTemplate.executeWithoutResult(status ->
+                    leaseRepository.release(LEASE_NAME, instanceId, LocalDateTime.now()));
+        } catch (RuntimeException e) {
+            log.warn("Failed to release the striped counter lease; it frees up when it expires", e);
+        }
+    }
+
+    private void acquireLease() {
+        long deadline = System.currentTimeMillis() + leaseSeconds * 1000 + LEASE_POLL_MS;
+        while (!tryClaimLease()) {
+            if (System.currentTimeMillis() > deadline) {
+                String holder = leaseRepository.findById(LEASE_NAME)
+                        .map(lease -> "instance " + lease.getInstanceId() + " (until " + lease.getExpiresAt() + ")")
+                        .orElse("another instance");
+                throw new IllegalStateException("campaign.raised-amount.counter-mode=striped runs on a single " +
+                        "instance, and the striped counter lease is held by " + holder);
+            }
+            try {
+                Thread.sleep(LEASE_POLL_MS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while waiting for the striped counter lease", e);
+            }
+        }
+        log.info("Took the striped counter lease (instance {})", instanceId);
+    }
+
+    private boolean tryClaimLease() {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime expiry = now.plusSeconds(leaseSeconds);
+        Integer claimed = transactionTemplate.execute(status -> leaseRepository.claim(LEASE_NAME, instanceId, expiry, now));
+        if (claimed == null || claimed == 0) {
+            if (leaseRepository.existsById(LEASE_NAME)) {
+                return false; // held by another instance
+            }
+            try {
+                transactionTemplate.executeWithoutResult(status -> leaseRepository.insertLease(LEASE_NAME, instanceId, expiry));
+            } catch (DataIntegrityViolationException e) {
+                return false; // another instance took it first
+            }
+        }
+        leaseExpiresAt = expiry;
+        return true;
+    }
+
+    private boolean holdsLease() {
+        LocalDateTime expiry = leaseExpiresAt;
+        return expiry != null && LocalDateTime.now().isBefore(expiry);
+    }
+
+    private void add(Long campaignId, long paise) {
+        counters.computeIfAbsent(campaignId, id -> new CampaignCounter()).credited.add(paise);
+        if (pendingCredits.incrementAndGet() == flushThreshold) {
+            taskScheduler.schedule(this::flush, Instant.now());
+        }
+    }
+
+    private void flushPending() {
+        pendingCredits.set(0);
+
+        Map<Long, Long> deltas = new HashMap<>();
+        counters.forEach((campaignId, counter) -> {
+            long delta = counter.credited.sum() - counter.flushed;
+            if (delta != 0) {
+                deltas.put(campaignId, delta);
+            }
+        });
+        if (deltas.isEmpty()) {
+            return;
+        }
+
+        try {
+            transactionTemplate.executeWithoutResult(status -> deltas.forEach((campaignId, delta) -> {
+                campaignRepository.addToRaisedAmount(campaignId, BigDecimal.valueOf(delta, AMOUNT_SCALE));
+                // The conditional update only matches while the campaign is still ACTIVE,
+                // so the switch to COMPLETED happens exactly once.
+                if (campaignRepository.markCompletedIfGoalReached(campaignId) > 0) {
+                    log.info("Campaign {} reached its goal", campaignId);
+                }
+            }));
+            deltas.forEach((campaignId, delta) -> counters.get(campaignId).flushed += delta);
+            evictCachedCampaigns(deltas.keySet());
+        } catch (RuntimeException e) {
+            // Deltas stay pending and are retried on the next flush
+            log.warn("Failed to flush raised amounts for {} campaigns", deltas.size(), e);
+        }
+    }
+
+    private void evictCachedCampaigns(Set<Long> campaignIds) {
+        Cache campaigns = cacheManager.getCache(CacheConfig.CAMPAIGNS);
+        if (campaigns != null) {
+            campaignIds.forEach(campaigns::evict);
+        }
+        Cache activeCampaigns = cacheManager.getCache(CacheConfig.ACTIVE_CAMPAIGNS);
+        if (activeCampaigns != null) {
+            activeCampaigns.clear();
+        }
+    }
+
+    private static final class CampaignCounter {
+        private final LongAdder credited = new LongAdder();
+        private volatile long flushed; // written under flushLock
+    }
+}
@@ -0,0 +1,389 @@
+package com.microdonation.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * In-memory inverted index over campaign titles and descriptions.
+ *
+ * Terms are kept in a sorted map, so every query word also matches the terms it is a prefix
+ * of ("edu" finds "education"). All query words must match. A campaign scores, per query word,
+ * the best of its matching terms by tf-idf, with title matches boosted and prefix matches
+ * weighted down, summed over the query words.
+ *
+ * Each term's postings are grouped by their title/description counts, so a query word can list
+ * its campaigns from the highest score down. Queries run the threshold algorithm over those
+ * lists: they stop as soon as the k-th best campaign found outscores anything not yet seen,
+ * which keeps words that occur in most campaigns as cheap as rare ones.
+ *
+ * The index is filled by rebuild() at startup and kept current by index()/remove() after
+ * each committed campaign change.
+ */
+@Component
+public class CampaignSearchIndex {
+
+    private static final Pattern NON_WORD = Pattern.compile("[^\\p{L}\\p{N}]+");
+    private static final Set<String> STOP_WORDS = Set.of(
+            "a", "an", "and", "are", "as", "at", "be", "by", "for", "from", "in", "is", "it",
+            "of", "on", "or", "our", "the", "this", "to", "we", "with");
+    private static final int MIN_PREFIX_LENGTH = 2;
+    private static final double PREFIX_WEIGHT = 0.6;
+
+    private final NavigableMap<String, TermPostings> postings = new ConcurrentSkipListMap<>();
+    private final Map<Long, Set<String>> termsByCampaign = new ConcurrentHashMap<>();
+
+    private final double titleBoost;
+    private final int maxPrefixExpansions;
+
+    public CampaignSearchIndex(@Value("${campaign.search.title-boost:3.0}") double titleBoost,
+                               @Value("${campaign.search.max-prefix-expansions:64}") int maxPrefixExpansions) {
+        this.titleBoost = titleBoost;
+        this.maxPrefixExpansions = maxPrefixExpansions;
+    }
+
+    /**
+     * Replace the index contents with the given campaigns (rows of id, title, description).
+     *
+     * Campaigns are tokenized in parallel, then inverted in parallel by partitions of the
+     * term space, so no two threads ever write to the same term's postings.
+     */
+    public void rebuild(List<Object[]> campaigns) {
+        Map<Long, Map<String, Posting>> documents = campaigns.parallelStream()
+                .collect(Collectors.toConcurrentMap(row -> (Long) row[0],
+                        row -> tokenizeDocument((String) row[1], (String) row[2])));
+
+        int partitions = ForkJoinPool.getCommonPoolParallelism() * 4;
+        List<Map<String, TermPostings>> inverted = IntStream.range(0, partitions).parallel()
+                .mapToObj(partition -> {
+                    Map<String, TermPostings> terms = new HashMap<>();
+                    documents.forEach((campaignId, document) -> document.forEach((term, posting) -> {
+                        if (Math.floorMod(term.hashCode(), partitions) == partition) {
+                            terms.computeIfAbsent(term, t -> new TermPostings()).add(campaignId, posting);
+                        }
+                    }));
+                    return terms;
+                })
+                .toList();
+
+        postings.clear();
+        termsByCampaign.clear();
+        inverted.forEach(postings::putAll);
+        documents.forEach((campaignId, document) -> termsByCampaign.put(campaignId, document.keySet()));
+    }
+
+    /**
+     * Add or re-index a campaign
+     */
+    public void index(Long campaignId, String title, String description) {
+        Map<String, Posting> document = tokenizeDocument(title, description);
+
+        // compute() serializes changes to the same campaign
+        termsByCampaign.compute(campaignId, (id, previousTerms) -> {
+            if (previousTerms != null) {
+                previousTerms.forEach(term -> removePosting(term, id));
+            }
+            document.forEach((term, posting) ->
+                    postings.computeIfAbsent(term, t -> new TermPostings()).add(id, posting));
+            return document.keySet();
+        });
+    }
+
+    public void remove(Long campaignId) {
+        termsByCampaign.computeIfPresent(campaignId, (id, terms) -> {
+            terms.forEach(term -> removePosting(term, id));
+            return null;
+        });
+    }
+
+    /**
+     * Index or remove a campaign once the current transaction commits
+     */
+    public void indexAfterCommit(Long campaignId, String title, String description) {
+        afterCommit(() -> index(campaignId, title, description));
+    }
+
+    public void removeAfterCommit(Long campaignId) {
+        afterCommit(() -> remove(campaignId));
+    }
+
+    /**
+     * Ids of the best matching campaigns, most relevant first
+     */
+    public List<Long> search(String query, int limit) {
+        List<String> words = tokenize(query).stream().distinct().toList();
+        if (words.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+
+        int documentCount = Math.max(termsByCampaign.size(), 1);
+        List<WordStream> streams = new ArrayList<>();
+        for (String word : words) {
+            WordStream stream = expand(word, documentCount);
+            if (stream.isExhausted()) {
+                return List.of();
+            }
+            streams.add(stream);
+        }
+
+        // Threshold algorithm: read the words' lists in turn, score every new campaign
+        // completely by lookup, and stop once nothing unseen can beat the current top k
+        Comparator<ScoredCampaign> byRelevance = Comparator.comparingDouble(ScoredCampaign::score)
+                .thenComparingLong(ScoredCampaign::campaignId); // among equal scores found, newer campaigns first
+        PriorityQueue<ScoredCampaign> top = new PriorityQueue<>(limit + 1, byRelevance);
+        Set<Long> seen = new HashSet<>();
+        while (true) {
+            for (WordStream stream : streams) {
+                if (stream.isExhausted()) {
+                    // Every campaign matching this word has been seen, and a match needs all words
+                    return ranked(top);
+                }
+                Long campaignId = stream.next();
+                if (!seen.add(campaignId)) {
+                    continue;
+                }
+                double score = 0;
+                for (WordStream other : streams) {
+                    double wordScore = other.scoreOf(campaignId);
+                    if (wordScore == 0) {
+                        score = 0;
+                        break;
+                    }
+                    score += wordScore;
+                }
+                if (score > 0) {
+                    top.offer(new ScoredCampaign(campaignId, score));
+                    if (top.size() > limit) {
+                        top.poll();
+                    }
+                }
+            }
+
+            double threshold = 0;
+            for (WordStream stream : streams) {
+                threshold += stream.upperBound();
+            }
+            if (top.size() == limit && top.peek().score() >= threshold) {
+                return ranked(top);
+            }
+        }
+    }
+
+    public int size() {
+        return termsByCampaign.size();
+    }
+
+    private WordStream expand(String word, int documentCount) {
+        WordStream stream = new WordStream();
+        // Empty postings belong to terms whose campaigns were all re-indexed or removed
+        TermPostings exact = postings.get(word);
+        if (exact != null && !exact.isEmpty()) {
+            stream.addTerm(exact, exact.idf(documentCount));
+        }
+        if (word.length() >= MIN_PREFIX_LENGTH) {
+            int expansions = 0;
+            for (TermPostings termPostings : postings.subMap(word, false, word + Character.MAX_VALUE, false).values()) {
+                if (expansions >= maxPrefixExpansions) {
+                    break;
+                }
+                if (!termPostings.isEmpty()) {
+                    stream.addTerm(termPostings, termPostings.idf(documentCount) * PREFIX_WEIGHT);
+                    expansions++;
+                }
+            }
+        }
+        return stream;
+    }
+
+    private static List<Long> ranked(PriorityQueue<ScoredCampaign> top) {
+        List<Long> ids = new ArrayList<>(top.size());
+        while (!top.isEmpty()) {
+            ids.add(top.poll().campaignId());
+        }
+        return ids.reversed();
+    }
+
+    private void removePosting(String term, Long campaignId) {
+        // Emptied terms are left in place (dropping them would race with a concurrent index())
+        // and skipped by expand(); rebuild() clears them
+        TermPostings termPostings = postings.get(term);
+        if (termPostings != null) {
+            termPostings.remove(campaignId);
+        }
+    }
+
+    /**
+     * Terms of a campaign with their occurrences in title and description
+     */
+    private static Map<String, Posting> tokenizeDocument(String title, String description) {
+        Map<String, Posting> document = new HashMap<>();
+        tokenize(title).forEach(term -> document.merge(term, new Posting(1, 0), Posting::add));
+        tokenize(description).forEach(term -> document.merge(term, new Posting(0, 1), Posting::add));
+        return document;
+    }
+
+    private static List<String> tokenize(String text) {
+        if (text == null || text.isBlank()) {
+            return List.of();
+        }
+        List<String> terms = new ArrayList<>();
+        for (String token : NON_WORD.split(text.toLowerCase(Locale.ROOT))) {
+            if (!token.isEmpty() && !STOP_WORDS.contains(token)) {
+                terms.add(token);
+            }
+        }
+        return terms;
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    /**
+     * Campaigns containing one term, grouped by posting. A term has only a handful of distinct
+     * postings, so the groups list campaigns in score order and also serve lookups by id.
+     */
+    private static final class TermPostings {
+
+        private final Map<Posting, Set<Long>> byPosting = new ConcurrentHashMap<>();
+
+        void add(Long campaignId, Posting posting) {
+            byPosting.computeIfAbsent(posting, p -> ConcurrentHashMap.newKeySet()).add(campaignId);
+        }
+
+        void remove(Long campaignId) {
+            byPosting.values().forEach(campaignIds -> campaignIds.remove(campaignId));
+        }
+
+        Posting postingOf(Long campaignId) {
+            for (Map.Entry<Posting, Set<Long>> group : byPosting.entrySet()) {
+                if (group.getValue().contains(campaignId)) {
+                    return group.getKey();
+                }
+            }
+            return null;
+        }
+
+        boolean isEmpty() {
+            return byPosting.values().stream().allMatch(Set::isEmpty);
+        }
+
+        double idf(int documentCount) {
+            int documentFrequency = byPosting.values().stream().mapToInt(Set::size).sum();
+            return Math.log(1 + (double) documentCount / Math.max(documentFrequency, 1));
+        }
+    }
+
+    /**
+     * One query word's matching campaigns, listed from the highest word score down
+     */
+    private final class WordStream {
+
+        private final List<WeightedTerm> terms = new ArrayList<>();
+        private final PriorityQueue<Group> groups =
+                new PriorityQueue<>(Comparator.comparingDouble(Group::score).reversed());
+        private Iterator<Long> current = Collections.emptyIterator();
+        private double currentScore;
+
+        void addTerm(TermPostings termPostings, double weight) {
+            terms.add(new WeightedTerm(termPostings, weight));
+            termPostings.byPosting.forEach((posting, campaignIds) ->
+                    groups.add(new Group(weight * posting.tf(titleBoost), campaignIds)));
+        }
+
+        boolean isExhausted() {
+            advance();
+            return !current.hasNext();
+        }
+
+        Long next() {
+            advance();
+            return current.next();
+        }
+
+        /**
+         * Highest word score of any campaign not listed yet
+         */
+        double upperBound() {
+            return isExhausted() ? 0 : currentScore;
+        }
+
+        /**
+         * Word score of a campaign: its best matching term, 0 if none matches
+         */
+        double scoreOf(Long campaignId) {
+            double best = 0;
+            for (WeightedTerm term : terms) {
+                Posting posting = term.postings().postingOf(campaignId);
+                if (posting != null) {
+                    best = Math.max(best, term.weight() * posting.tf(titleBoost));
+                }
+            }
+            return best;
+        }
+
+        private void advance() {
+            while (!current.hasNext() && !groups.isEmpty()) {
+                Group group = groups.poll();
+                current = group.campaignIds().iterator();
+                currentScore = group.score();
+            }
+        }
+    }
+
+    private record WeightedTerm(TermPostings postings, double weight) {
+    }
+
+    private record Group(double score, Set<Long> campaignIds) {
+    }
+
+    private record ScoredCampaign(long campaignId, double score) {
+    }
+
+    /**
+     * Occurrences of a term in one campaign's title and description
+     */
+    private record Posting(int titleCount, int descriptionCount) {
+
+        Posting add(Posting other) {
+            return new Posting(titleCount + other.titleCount, descriptionCount + other.descriptionCount);
+        }
+
+        double tf(double titleBoost) {
+            return titleBoost * dampen(titleCount) + dampen(descriptionCount);
+        }
+
+        private static double dampen(int count) {
+            return count == 0 ? 0 : 1 + Math.log(count);
+        }
+    }
+}
@@ -1,27 +1,47 @@
 package com.microdonation.service;
 
+import com.microdonation.config.CacheConfig;
 import com.microdonation.dto.CampaignDTO;
+import com.microdonation.dto.CursorPageDTO;
+import com.microdonation.dto.PageCursor;
 import com.microdonation.model.Campaign;
 import com.microdonation.model.User;
 import com.microdonation.repository.CampaignRepository;
 import com.microdonation.repository.UserRepository;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.Caching;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Map;
 
+@Slf4j
 @Service
 @RequiredArgsConstructor
 @Transactional
-public class CampaignService {
+public class CampaignService implements SmartInitializingSingleton {
 
     private final CampaignRepository campaignRepository;
     private final UserRepository userRepository;
+    private final CampaignRaisedAmountAccumulator raisedAmountAccumulator;
+    private final CampaignStatsService campaignStatsService;
+    private final DonationRollupService donationRollupService;
+    private final CampaignSearchIndex searchIndex;
 
+    @CacheEvict(cacheNames = CacheConfig.ACTIVE_CAMPAIGNS, allEntries = true)
     public CampaignDTO createCampaign(CampaignDTO campaignDTO) {
         User creator = userRepository.findById(campaignDTO.getCreatedBy())
                 .orElseThrow(() -> new RuntimeException("User not found with id: " + campaignDTO.getCreatedBy()));
@@ -41,34 +61,47 @@ public class CampaignService {
         campaign.setCreator(creator);
 
         Campaign savedCampaign = campaignRepository.save(campaign);
+        campaignStatsService.initializeStats(savedCampaign.getCampaignId());
+        searchIndex.indexAfterCommit(savedCampaign.getCampaignId(), savedCampaign.getTitle(), savedCampaign.getDescription());
         return convertToDTO(savedCampaign);
     }
 
     public List<CampaignDTO> getAllCampaigns() {
-        return campaignRepository.findAll().stream()
-                .map(this::convertToDTO)
-                .collect(Collectors.toList());
+        return campaignRepository.findAllDTOs();
     }
 
+    public CursorPageDTO<CampaignDTO> getCampaignsPage(String cursor, int size) {
+        Pageable pageable = PageRequest.ofSize(CursorPageDTO.boundedSize(size));
+        Slice<Campaign> slice;
+        if (cursor == null || cursor.isBlank()) {
+            slice = campaignRepository.findPage(pageable);
+        } else {
+            PageCursor after = PageCursor.decode(cursor);
+            slice = campaignRepository.findPageAfter(after.timestamp(), after.id(), pageable);
+        }
+        return CursorPageDTO.of(slice, this::convertToDTO,
+                campaign -> new PageCursor(campaign.getCreatedAt(), campaign.getCampaignId()));
+    }
+
+    @Cacheable(cacheNames = CacheConfig.ACTIVE_CAMPAIGNS, key = "'all'")
     public List<CampaignDTO> getActiveCampaigns() {
-        return campaignRepository.findActiveCampaigns().stream()
-                .filter(Campaign::isActive)
-                .map(this::convertToDTO)
-                .collect(Collectors.toList());
+        return campaignRepository.findActiveDTOs(LocalDate.now());
     }
 
+    @Cacheable(cacheNames = CacheConfig.CAMPAIGNS, key = "#id")
     public CampaignDTO getCampaignById(Long id) {
-        Campaign campaign = campaignRepository.findById(id)
+        return campaignRepository.findDTOById(id)
                 .orElseThrow(() -> new RuntimeException("Campaign not found with id: " + id));
-        return convertToDTO(campaign);
     }
 
     public List<CampaignDTO> getCampaignsByUser(Long userId) {
-        return campaignRepository.findByCreatorUserId(userId).stream()
-                .map(this::convertToDTO)
-                .collect(Collectors.toList());
+        return campaignRepository.findDTOsByCreator(userId);
     }
 
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CacheConfig.CAMPAIGNS, key = "#id"),
+            @CacheEvict(cacheNames = CacheConfig.ACTIVE_CAMPAIGNS, allEntries = true)
+    })
     public CampaignDTO updateCampaign(Long id, CampaignDTO campaignDTO) {
         Campaign campaign = campaignRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Campaign not found with id: " + id));
@@ -84,17 +117,67 @@ public class CampaignService {
         }
 
         Campaign updatedCampaign = campaignRepository.save(campaign);
+        searchIndex.indexAfterCommit(id, updatedCampaign.getTitle(), updatedCampaign.getDescription());
         return convertToDTO(updatedCampaign);
     }
 
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CacheConfig.CAMPAIGNS, key = "#id"),
+            @CacheEvict(cacheNames = CacheConfig.ACTIVE_CAMPAIGNS, allEntries = true)
+    })
     public void deleteCampaign(Long id) {
         if (!campaignRepository.existsById(id)) {
             throw new RuntimeException("Campaign not found with id: " + id);
         }
+        campaignStatsService.deleteStats(id);
+        donationRollupService.deleteRollups(id);
         campaignRepository.deleteById(id);
+        searchIndex.removeAfterCommit(id);
+    }
+
+    /**
+     * Campaigns matching a free-text query on title and description, most relevant first
+     */
+    @Transactional(readOnly = true)
+    public List<CampaignDTO> searchCampaigns(String query, int limit) {
+        List<Long> ids = searchIndex.search(query, CursorPageDTO.boundedSize(limit));
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, Integer> rank = new HashMap<>();
+        for (int i = 0; i < ids.size(); i++) {
+            rank.put(ids.get(i), i);
+        }
+        List<CampaignDTO> campaigns = new ArrayList<>(campaignRepository.findDTOsByIds(ids));
+        campaigns.sort(Comparator.comparing(campaign -> rank.get(campaign.getCampaignId())));
+        return campaigns;
+    }
+
+    /**
+     * Build the search index from the campaigns table before the application starts serving requests
+     */
+    @Override
+    public void afterSingletonsInstantiated() {
+        long start = System.nanoTime();
+        searchIndex.rebuild(campaignRepository.findSearchDocuments());
+        log.info("Indexed {} campaigns for search in {} ms", searchIndex.size(),
+                (System.nanoTime() - start) / 1_000_000);
     }
 
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CacheConfig.CAMPAIGNS, key = "#campaignId",
+                    condition = "!@campaignRaisedAmountAccumulator.enabled"),
+            @CacheEvict(cacheNames = CacheConfig.ACTIVE_CAMPAIGNS, allEntries = true,
+                    condition = "!@campaignRaisedAmountAccumulator.enabled")
+    })
     public void updateCampaignRaisedAmount(Long campaignId, BigDecimal amount) {
+        // Striped counter mode: credit in memory, flushed to the campaign row periodically
+        // (the flush evicts the cached campaigns)
+        if (raisedAmountAccumulator.isEnabled()) {
+            raisedAmountAccumulator.credit(campaignId, amount);
+            return;
+        }
+
         Campaign campaign = campaignRepository.findById(campaignId)
                 .orElseThrow(() -> new RuntimeException("Campaign not found"));
 
@@ -0,0 +1,148 @@
+package com.microdonation.service;
+
+import com.microdonation.dto.CampaignStatsDTO;
+import com.microdonation.model.CampaignStats;
+import com.microdonation.model.Donation;
+import com.microdonation.repository.CampaignStatsRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Maintains the campaign_stats read model.
+ *
+ * Rows are updated with a single atomic UPDATE inside the donating transaction, so the
+ * totals always match the committed donations. rebuildStats() recomputes the table from
+ * the donations table while donations keep coming in; it also runs at startup when
+ * campaign.stats.rebuild-on-startup=true (use this once after deploying to an existing database).
+ */
+@Slf4j
+@Service
+@Transactional
+public class CampaignStatsService implements SmartInitializingSingleton {
+
+    private final CampaignStatsRepository campaignStatsRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean rebuildOnStartup;
+
+    public CampaignStatsService(CampaignStatsRepository campaignStatsRepository,
+                                PlatformTransactionManager transactionManager,
+                                @Value("${campaign.stats.rebuild-on-startup:false}") boolean rebuildOnStartup) {
+        this.campaignStatsRepository = campaignStatsRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.transactionTemplate.setIsolationLevel(TransactionDefinition.ISOLATION_READ_COMMITTED);
+        this.rebuildOnStartup = rebuildOnStartup;
+    }
+
+    /**
+     * Create the stats row of a newly created campaign
+     */
+    public void initializeStats(Long campaignId) {
+        campaignStatsRepository.insertComputed(campaignId);
+    }
+
+    /**
+     * Add already flushed PAID donations of one campaign to its stats.
+     * newDonors is the number of donating users with no earlier PAID donation to the campaign.
+     */
+    public void recordDonations(Long campaignId, List<Donation> donations, long newDonors) {
+        BigDecimal total = BigDecimal.ZERO;
+        BigDecimal maxAmount = null;
+        LocalDateTime lastDonationAt = null;
+        for (Donation donation : donations) {
+            total = total.add(donation.getAmount());
+            if (maxAmount == null || donation.getAmount().compareTo(maxAmount) > 0) {
+                maxAmount = donation.getAmount();
+            }
+            if (lastDonationAt == null || donation.getDonationDate().isAfter(lastDonationAt)) {
+                lastDonationAt = donation.getDonationDate();
+            }
+        }
+
+        int updated = campaignStatsRepository.addDonations(campaignId, total, donations.size(),
+                newDonors, maxAmount, lastDonationAt);
+        if (updated == 0) {
+            // Campaign has no stats row yet (created before the table existed): computing it from
+            // donations already includes the ones just inserted. If another transaction inserts
+            // the row first, its totals cannot include these donations, so they are added instead.
+            campaignStatsRepository.insertComputedOrAdd(campaignId, total, donations.size(),
+                    newDonors, maxAmount, lastDonationAt);
+        }
+    }
+
+    @Transactional(readOnly = true)
+    public CampaignStatsDTO getStats(Long campaignId) {
+        return campaignStatsRepository.findById(campaignId)
+                .map(this::convertToDTO)
+                .orElseGet(() -> new CampaignStatsDTO(campaignId, BigDecimal.ZERO, 0L, 0L, null, null));
+    }
+
+    public void deleteStats(Long campaignId) {
+        campaignStatsRepository.deleteById(campaignId);
+    }
+
+    /**
+     * Recompute every campaign's stats from the donations table, one short transaction per campaign.
+     *
+     * Each campaign's row is locked before its donations are summed, so a donation that updated
+     * the row has committed and is counted, and one that has not yet updated it waits for the
+     * rebuild and then adds itself to the recomputed totals. Rows are never deleted and
+     * re-inserted, so donations always find the row to update.
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public int rebuildStats() {
+        List<Long> campaignIds = campaignStatsRepository.findCampaignIds();
+        for (Long campaignId : campaignIds) {
+            transactionTemplate.executeWithoutResult(status -> rebuildStats(campaignId));
+        }
+        transactionTemplate.executeWithoutResult(status -> campaignStatsRepository.deleteOrphans());
+        log.info("Rebuilt campaign stats for {} campaigns", campaignIds.size());
+        return campaignIds.size();
+    }
+
+    private void rebuildStats(Long campaignId) {
+        Optional<CampaignStats> locked = campaignStatsRepository.findForUpdate(campaignId);
+        if (locked.isEmpty()) {
+            // Computed from the committed donations; a row inserted concurrently is already complete
+            campaignStatsRepository.insertComputedOrAdd(campaignId, BigDecimal.ZERO, 0, 0, null, null);
+            return;
+        }
+        Object[] totals = campaignStatsRepository.computeTotals(campaignId).get(0);
+        CampaignStats stats = locked.get();
+        stats.setPaidSum((BigDecimal) totals[0]);
+        stats.setPaidCount((Long) totals[1]);
+        stats.setDonorCount((Long) totals[2]);
+        stats.setMaxDonation((BigDecimal) totals[3]);
+        stats.setLastDonationAt((LocalDateTime) totals[4]);
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        if (rebuildOnStartup) {
+            rebuildStats();
+        }
+    }
+
+    private CampaignStatsDTO convertToDTO(CampaignStats stats) {
+        CampaignStatsDTO dto = new CampaignStatsDTO();
+        dto.setCampaignId(stats.getCampaignId());
+        dto.setTotalRaised(stats.getPaidSum());
+        dto.setTotalDonations(stats.getPaidCount());
+        dto.setTotalDonors(stats.getDonorCount());
+        dto.setLargestDonation(stats.getMaxDonation());
+        dto.setLastDonationAt(stats.getLastDonationAt());
+        return dto;
+    }
+}
@@ -0,0 +1,233 @@
+package com.microdonation.service;
+
+import com.microdonation.dto.DonationBatchResultDTO;
+import com.microdonation.dto.DonationDTO;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Group commit of single donations, per campaign.
+ *
+ * Enabled with donation.group-commit.enabled=true. A donation is queued on its campaign
+ * instead of running in its own transaction; the first donation to arrive on an idle
+ * campaign schedules a flush after the coalescing window, and the flush commits everything
+ * queued by then (up to max-batch per transaction) through DonationService.makeDonations:
+ * one transaction, batched donation inserts and one update of the campaign row.
+ *
+ * At most one flush runs per campaign; donations arriving while it commits form the next
+ * batch. Each caller waits for the outcome of its own donation, up to timeout-ms:
+ * - a campaign queue holds at most max-queue donations; further callers wait for room and
+ *   are rejected with queue_full when none frees up in time
+ * - a donation still queued at the timeout is withdrawn and rejected with timeout
+ * - a donation whose batch is already committing at the timeout is reported as commit_unknown,
+ *   since it may still be committed
+ * A campaign's queue is dropped from the map once it is drained.
+ *
+ * Queues are guarded by a ReentrantLock rather than a monitor, so callers on virtual threads
+ * waiting for room unmount instead of pinning their carrier thread.
+ */
+@Slf4j
+@Component
+public class DonationGroupCommitter {
+
+    private final Map<Long, CampaignQueue> queues = new ConcurrentHashMap<>();
+
+    private final ObjectProvider<DonationService> donationService;
+    private final ScheduledThreadPoolExecutor executor;
+    private final DistributionSummary batchSizes;
+    private final boolean enabled;
+    private final long windowMs;
+    private final int maxBatch;
+    private final int maxQueue;
+    private final long timeoutMs;
+
+    public DonationGroupCommitter(ObjectProvider<DonationService> donationService,
+                                  MeterRegistry meterRegistry,
+                                  @Value("${donation.group-commit.enabled:false}") boolean enabled,
+                                  @Value("${donation.group-commit.window-ms:5}") long windowMs,
+                                  @Value("${donation.group-commit.max-batch:200}") int maxBatch,
+                                  @Value("${donation.group-commit.workers:4}") int workers,
+                                  @Value("${donation.group-commit.max-queue:1000}") int maxQueue,
+                                  @Value("${donation.group-commit.timeout-ms:30000}") long timeoutMs) {
+        this.donationService = donationService;
+        this.enabled = enabled;
+        this.windowMs = windowMs;
+        this.maxBatch = maxBatch;
+        this.maxQueue = maxQueue;
+        this.timeoutMs = timeoutMs;
+        this.batchSizes = DistributionSummary.builder("donation.group_commit.batch_size")
+                .description("Donations committed together in one group-commit transaction")
+                .register(meterRegistry);
+
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = new ScheduledThreadPoolExecutor(workers, runnable -> {
+            Thread thread = new Thread(runnable, "group-commit-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Queue a donation for its campaign's next group commit and wait for its result.
+     * A donation that could not be queued or committed in time comes back failed with
+     * reason queue_full, timeout or commit_unknown. The donation's Idempotency-Key claim
+     * (null without one) is completed in the batch transaction.
+     */
+    public DonationBatchResultDTO submit(DonationDTO donationDTO, IdempotencyService.Claim claim) {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+        PendingDonation pending = new PendingDonation(donationDTO, claim, new CompletableFuture<>());
+        CampaignQueue queue;
+        try {
+            queue = enqueue(pending, deadline);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while queueing the donation", e);
+        }
+        if (queue == null) {
+            return DonationBatchResultDTO.failed(0, "queue_full",
+                    "Too many donations are queued for this campaign. Please try again.");
+        }
+
+        try {
+            return pending.result().get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            queue.lock.lock();
+            try {
+                if (queue.pending.remove(pending)) {
+                    queue.notFull.signalAll();
+                    return DonationBatchResultDTO.failed(0, "timeout",
+                            "The donation was not processed in time and has not been made. Please try again.");
+                }
+            } finally {
+                queue.lock.unlock();
+            }
+            return DonationBatchResultDTO.failed(0, "commit_unknown",
+                    "The donation is still being processed and may still be made. " +
+                            "Please check your donations before trying again.");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new RuntimeException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while waiting for the donation", e);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    /**
+     * Add a donation to its campaign's queue, waiting until the deadline for room.
+     * Returns the queue, or null when it stayed full.
+     */
+    private CampaignQueue enqueue(PendingDonation pending, long deadline) throws InterruptedException {
+        Long campaignId = pending.donation().getCampaignId();
+        while (true) {
+            CampaignQueue queue = queues.computeIfAbsent(campaignId, CampaignQueue::new);
+            queue.lock.lock();
+            try {
+                long remaining = deadline - System.nanoTime();
+                while (!queue.retired && queue.pending.size() >= maxQueue) {
+                    if (remaining <= 0) {
+                        return null;
+                    }
+                    remaining = queue.notFull.awaitNanos(remaining);
+                }
+                if (queue.retired) {
+                    continue; // drained and removed meanwhile; use the campaign's new queue
+                }
+                queue.pending.add(pending);
+                if (!queue.flushing) {
+                    queue.flushing = true;
+                    executor.schedule(() -> flush(queue), windowMs, TimeUnit.MILLISECONDS);
+                }
+                return queue;
+            } finally {
+                queue.lock.unlock();
+            }
+        }
+    }
+
+    private void flush(CampaignQueue queue) {
+        while (true) {
+            List<PendingDonation> batch;
+            queue.lock.lock();
+            try {
+                if (queue.pending.isEmpty()) {
+                    queue.flushing = false;
+                    queue.retired = true;
+                    queues.remove(queue.campaignId, queue);
+                    queue.notFull.signalAll();
+                    return;
+                }
+                int size = Math.min(maxBatch, queue.pending.size());
+                List<PendingDonation> head = queue.pending.subList(0, size);
+                batch = new ArrayList<>(head);
+                head.clear();
+                queue.notFull.signalAll();
+            } finally {
+                queue.lock.unlock();
+            }
+            commit(batch);
+        }
+    }
+
+    private void commit(List<PendingDonation> batch) {
+        batchSizes.record(batch.size());
+        try {
+            List<DonationBatchResultDTO> results = donationService.getObject()
+                    .makeDonations(batch.stream().map(PendingDonation::donation).toList(),
+                            batch.stream().map(PendingDonation::claim).toList());
+            for (int i = 0; i < batch.size(); i++) {
+                batch.get(i).result().complete(results.get(i));
+            }
+        } catch (RuntimeException e) {
+            // The whole transaction failed (after retries), so none of the donations was made
+            log.warn("Group commit of {} donations failed", batch.size(), e);
+            batch.forEach(pending -> pending.result().completeExceptionally(e));
+        }
+    }
+
+    private static final class CampaignQueue {
+        private final Long campaignId;
+        private final ReentrantLock lock = new ReentrantLock();
+        private final Condition notFull = lock.newCondition();
+        private final List<PendingDonation> pending = new ArrayList<>(); // guarded by lock
+        private boolean flushing; // a flush is scheduled or running; guarded by lock
+        private boolean retired; // drained and removed from queues, accepts nothing more; guarded by lock
+
+        private CampaignQueue(Long campaignId) {
+            this.campaignId = campaignId;
+        }
+    }
+
+    private record PendingDonation(DonationDTO donation, IdempotencyService.Claim claim,
+                                   CompletableFuture<DonationBatchResultDTO> result) {
+    }
+}
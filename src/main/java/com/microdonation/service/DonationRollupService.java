@@ -0,0 +1,191 @@
+package com.microdonation.service;
+
+import com.microdonation.dto.CampaignTimeseriesDTO;
+import com.microdonation.dto.TimeseriesBucketDTO;
+import com.microdonation.model.Donation;
+import com.microdonation.model.DonationRollup;
+import com.microdonation.repository.DonationRepository;
+import com.microdonation.repository.DonationRollupRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Maintains the donation_rollups read model: per-campaign hourly and daily buckets of PAID
+ * donations (sum, count and distinct donors), in the server's time zone like donation dates.
+ *
+ * Buckets are upserted inside the donating transaction. A donor is counted in a bucket when
+ * they had no PAID donation to the campaign since the bucket started, so the donation path
+ * passes in each donor's last donation before the new ones. rebuildRollups() recomputes the
+ * table from the donations table; it also runs at startup when
+ * campaign.rollup.rebuild-on-startup=true (use this once after deploying to an existing database).
+ */
+@Slf4j
+@Service
+@Transactional
+public class DonationRollupService implements SmartInitializingSingleton {
+
+    private static final List<String> GRANULARITIES = List.of(DonationRollup.HOUR, DonationRollup.DAY);
+
+    private final DonationRollupRepository donationRollupRepository;
+    private final DonationRepository donationRepository;
+    private final boolean rebuildOnStartup;
+    private final int maxBuckets;
+    private final int defaultHours;
+    private final int defaultDays;
+
+    public DonationRollupService(DonationRollupRepository donationRollupRepository,
+                                 DonationRepository donationRepository,
+                                 @Value("${campaign.rollup.rebuild-on-startup:false}") boolean rebuildOnStartup,
+                                 @Value("${campaign.rollup.max-buckets:2000}") int maxBuckets,
+                                 @Value("${campaign.rollup.default-hours:48}") int defaultHours,
+                                 @Value("${campaign.rollup.default-days:30}") int defaultDays) {
+        this.donationRollupRepository = donationRollupRepository;
+        this.donationRepository = donationRepository;
+        this.rebuildOnStartup = rebuildOnStartup;
+        this.maxBuckets = maxBuckets;
+        this.defaultHours = defaultHours;
+        this.defaultDays = defaultDays;
+    }
+
+    /**
+     * Add already flushed PAID donations of one campaign to its buckets.
+     * lastDonationBefore maps each donating user to their latest earlier PAID donation
+     * to the campaign; users with none are absent.
+     */
+    public void recordDonations(Long campaignId, List<Donation> donations, Map<Long, LocalDateTime> lastDonationBefore) {
+        List<Entry> entries = donations.stream()
+                .map(d -> new Entry(d.getUser().getUserId(), d.getAmount(), d.getDonationDate()))
+                .sorted(Comparator.comparing(Entry::donatedAt))
+                .toList();
+        accumulate(entries, lastDonationBefore).forEach((key, bucket) ->
+                donationRollupRepository.addDonations(campaignId, key.granularity(), key.bucketStart(),
+                        bucket.sum, bucket.count, bucket.donors));
+    }
+
+    /**
+     * Buckets of one campaign in [from, to), oldest first, including empty ones.
+     * Without bounds the range ends after the current bucket and covers the last
+     * default-hours hours or default-days days.
+     */
+    @Transactional(readOnly = true)
+    public CampaignTimeseriesDTO getTimeseries(Long campaignId, String granularity, LocalDateTime from, LocalDateTime to) {
+        String unit = granularity.toUpperCase(Locale.ROOT);
+        if (!GRANULARITIES.contains(unit)) {
+            throw new RuntimeException("Unknown granularity: " + granularity + " (expected hour or day)");
+        }
+        if (to == null) {
+            to = bucketStart(unit, LocalDateTime.now()).plus(1, step(unit));
+        }
+        if (from == null) {
+            from = DonationRollup.DAY.equals(unit) ? to.minusDays(defaultDays) : to.minusHours(defaultHours);
+        }
+        LocalDateTime start = bucketStart(unit, from);
+        if (!to.isAfter(start)) {
+            throw new RuntimeException("Range end must be after its start");
+        }
+        long bucketCount = step(unit).between(start, to.minusNanos(1)) + 1;
+        if (bucketCount > maxBuckets) {
+            throw new RuntimeException("Range covers " + bucketCount + " buckets, the maximum is " + maxBuckets);
+        }
+
+        Map<LocalDateTime, DonationRollup> rollups = donationRollupRepository.findRange(campaignId, unit, start, to).stream()
+                .collect(Collectors.toMap(DonationRollup::getBucketStart, Function.identity()));
+        List<TimeseriesBucketDTO> buckets = new ArrayList<>((int) bucketCount);
+        for (LocalDateTime bucket = start; bucket.isBefore(to); bucket = bucket.plus(1, step(unit))) {
+            DonationRollup rollup = rollups.get(bucket);
+            buckets.add(rollup == null
+                    ? new TimeseriesBucketDTO(bucket, BigDecimal.ZERO, 0L, 0L)
+                    : new TimeseriesBucketDTO(bucket, rollup.getPaidSum(), rollup.getPaidCount(), rollup.getDonorCount()));
+        }
+        return new CampaignTimeseriesDTO(campaignId, unit.toLowerCase(Locale.ROOT), start, to, buckets);
+    }
+
+    public void deleteRollups(Long campaignId) {
+        donationRollupRepository.deleteByCampaign(campaignId);
+    }
+
+    /**
+     * Recompute every campaign's buckets from the donations table, one campaign at a time
+     */
+    public int rebuildRollups() {
+        donationRollupRepository.deleteAllInBatch();
+        int rows = 0;
+        for (Long campaignId : donationRepository.findPaidCampaignIds()) {
+            List<Entry> entries = donationRepository.findPaidEntriesByCampaign(campaignId).stream()
+                    .map(row -> new Entry((Long) row[0], (BigDecimal) row[1], (LocalDateTime) row[2]))
+                    .toList();
+            List<DonationRollup> rollups = new ArrayList<>();
+            accumulate(entries, Map.of()).forEach((key, bucket) -> rollups.add(new DonationRollup(
+                    campaignId, key.granularity(), key.bucketStart(), bucket.sum, bucket.count, bucket.donors)));
+            donationRollupRepository.saveAll(rollups);
+            donationRollupRepository.flush();
+            rows += rollups.size();
+        }
+        log.info("Rebuilt {} donation rollup buckets", rows);
+        return rows;
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        if (rebuildOnStartup) {
+            rebuildRollups();
+        }
+    }
+
+    /**
+     * Fold date-ordered donations into hour and day buckets
+     */
+    private Map<BucketKey, Bucket> accumulate(List<Entry> entries, Map<Long, LocalDateTime> lastDonationBefore) {
+        Map<Long, LocalDateTime> lastDonation = new HashMap<>(lastDonationBefore);
+        Map<BucketKey, Bucket> buckets = new LinkedHashMap<>();
+        for (Entry entry : entries) {
+            LocalDateTime previous = lastDonation.put(entry.userId(), entry.donatedAt());
+            for (String granularity : GRANULARITIES) {
+                LocalDateTime bucketStart = bucketStart(granularity, entry.donatedAt());
+                Bucket bucket = buckets.computeIfAbsent(new BucketKey(granularity, bucketStart), key -> new Bucket());
+                bucket.sum = bucket.sum.add(entry.amount());
+                bucket.count++;
+                if (previous == null || previous.isBefore(bucketStart)) {
+                    bucket.donors++;
+                }
+            }
+        }
+        return buckets;
+    }
+
+    private static LocalDateTime bucketStart(String granularity, LocalDateTime time) {
+        return time.truncatedTo(step(granularity));
+    }
+
+    private static ChronoUnit step(String granularity) {
+        return DonationRollup.DAY.equals(granularity) ? ChronoUnit.DAYS : ChronoUnit.HOURS;
+    }
+
+    private record Entry(Long userId, BigDecimal amount, LocalDateTime donatedAt) {
+    }
+
+    private record BucketKey(String granularity, LocalDateTime bucketStart) {
+    }
+
+    private static final class Bucket {
+        private BigDecimal sum = BigDecimal.ZERO;
+        private long count;
+        private long donors;
+    }
+}
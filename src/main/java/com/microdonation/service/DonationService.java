@@ -1,19 +1,46 @@
 package com.microdonation.service;
 
+import com.microdonation.dto.CursorPageDTO;
+import com.microdonation.dto.DonationBatchResultDTO;
 import com.microdonation.dto.DonationDTO;
+import com.microdonation.dto.PageCursor;
 import com.microdonation.model.Campaign;
 import com.microdonation.model.Donation;
 import com.microdonation.model.User;
 import com.microdonation.repository.CampaignRepository;
 import com.microdonation.repository.DonationRepository;
 import com.microdonation.repository.UserRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.UUID;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Function;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 @Service
@@ -25,63 +52,253 @@ public class DonationService {
     private final UserRepository userRepository;
     private final CampaignRepository campaignRepository;
     private final CampaignService campaignService;
+    private final CampaignStatsService campaignStatsService;
+    private final DonationRollupService donationRollupService;
+    private final WalletService walletService;
+    private final MeterRegistry meterRegistry;
+    private final RetryExecutor retryExecutor;
+    private final TransactionTemplate transactionTemplate;
+    private final DonationGroupCommitter groupCommitter;
+    private final CampaignProgressBroadcaster progressBroadcaster;
+    private final TransactionIdGenerator transactionIdGenerator;
+    private final CampaignRaisedAmountAccumulator raisedAmountAccumulator;
+    private final IdempotencyService idempotencyService;
 
+    @Value("${donation.batch.max-size:5000}")
+    private int maxBatchSize;
+
+    @Value("${campaign.raised-amount.counter-mode:direct}")
+    private String counterMode;
+
+    /**
+     * Make a single donation in its own transaction, retried if it collides with a
+     * concurrent update of the same campaign. With group commit enabled the donation is
+     * committed together with other donations to the same campaign instead.
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public DonationDTO makeDonation(DonationDTO donationDTO) {
-        // 1. Fetch the user
-        User user = userRepository.findById(donationDTO.getUserId())
-                .orElseThrow(() -> new RuntimeException("User not found with id: " + donationDTO.getUserId()));
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "rejected";
+        try {
+            IdempotencyService.Claim claim = idempotencyService.currentClaim();
+            DonationDTO result = groupCommitter.isEnabled() && donationDTO.getCampaignId() != null
+                    ? groupCommit(donationDTO, claim)
+                    : retryExecutor.execute("donation", () -> donationTransaction().execute(status -> {
+                        DonationDTO donation = recordDonation(donationDTO);
+                        idempotencyService.completeClaim(claim, HttpStatus.CREATED, donation);
+                        return donation;
+                    }));
+            outcome = "success";
+            meterRegistry.summary("donation.amount").record(donationDTO.getAmount().doubleValue());
+            return result;
+        } finally {
+            sample.stop(Timer.builder("donation.make")
+                    .description("Single donation, end to end")
+                    .tag("outcome", outcome)
+                    .publishPercentileHistogram()
+                    .register(meterRegistry));
+        }
+    }
+
+    private DonationDTO groupCommit(DonationDTO donationDTO, IdempotencyService.Claim claim) {
+        DonationBatchResultDTO result = groupCommitter.submit(donationDTO, claim);
+        if ("commit_unknown".equals(result.getReason())) {
+            // The batch may still commit and complete the claim, so a retry must not run again meanwhile
+            idempotencyService.retainClaim(claim);
+        }
+        if (result.getDonation() == null) {
+            throw rejected(result.getReason(), result.getError());
+        }
+        return result.getDonation();
+    }
 
-        // 2. Fetch the campaign
-        Campaign campaign = campaignRepository.findById(donationDTO.getCampaignId())
-                .orElseThrow(() -> new RuntimeException("Campaign not found with id: " + donationDTO.getCampaignId()));
+    private DonationDTO recordDonation(DonationDTO donationDTO) {
+        // 1. Fetch the campaign (locked in locking counter mode)
+        Campaign campaign = timeStage("campaign_load", () -> loadCampaigns(Set.of(donationDTO.getCampaignId()))
+                        .stream().findFirst())
+                .orElseThrow(() -> rejected("campaign_not_found",
+                        "Campaign not found with id: " + donationDTO.getCampaignId()));
 
-        // 3. Validate campaign is active
-        if (!campaign.isActive()) {
-            throw new RuntimeException("Campaign is not active. Cannot accept donations.");
+        // 2. Validate campaign is active (in striped counter mode, also against credits not flushed yet)
+        if (!campaign.isActive() || raisedAmountAccumulator.hasReachedGoal(campaign)) {
+            throw rejected("campaign_inactive", "Campaign is not active. Cannot accept donations.");
         }
 
-        // 4. Validate minimum donation amount
+        // 3. Validate minimum donation amount
         if (donationDTO.getAmount().compareTo(BigDecimal.ONE) < 0) {
-            throw new RuntimeException("Minimum donation amount is ₹1");
+            throw rejected("below_minimum", "Minimum donation amount is ₹1");
         }
 
-        // *** NEW: Check if user has sufficient wallet balance ***
-        if (!user.hasSufficientBalance(donationDTO.getAmount())) {
-            throw new RuntimeException("Insufficient wallet balance. Your current balance is ₹" +
-                    user.getWalletBalance() + ", but you are trying to donate ₹" +
+        // 4. Debit the wallet by appending a ledger entry (only succeeds if balance >= amount)
+        String transactionId = transactionIdGenerator.nextTransactionId();
+        if (!timeStage("wallet_debit", () -> walletService.debit(donationDTO.getUserId(), donationDTO.getAmount(), transactionId))) {
+            BigDecimal balance = walletService.getBalance(donationDTO.getUserId());
+            throw rejected("insufficient_balance", "Insufficient wallet balance. Your current balance is ₹" +
+                    balance + ", but you are trying to donate ₹" +
                     donationDTO.getAmount());
         }
 
-        // *** NEW: Deduct amount from user's wallet ***
-        boolean deducted = user.deductFromWallet(donationDTO.getAmount());
-        if (!deducted) {
-            throw new RuntimeException("Failed to deduct amount from wallet. Please try again.");
+        // 5. Create and save donation record. The donor check runs after the wallet lock, so it
+        //    sees any donation of this donor committed while the lock was awaited
+        Map<Long, LocalDateTime> lastDonation = timeStage("donor_check", () -> lastPaidDonations(
+                Set.of(campaign.getCampaignId()), Set.of(donationDTO.getUserId()))
+                .getOrDefault(campaign.getCampaignId(), Map.of()));
+
+        Donation savedDonation = timeStage("insert", () -> {
+            Donation donation = new Donation();
+            donation.setUser(userRepository.getReferenceById(donationDTO.getUserId()));
+            donation.setCampaign(campaign);
+            donation.setAmount(donationDTO.getAmount());
+            donation.setPaymentMode(donationDTO.getPaymentMode());
+            donation.setPaymentStatus("PAID"); // Payment successful after wallet deduction
+            donation.setTransactionId(transactionId);
+
+            return donationRepository.saveAndFlush(donation);
+        });
+
+        // 6. Update campaign raised amount and stats
+        timeStage("campaign_update", () -> {
+            campaignService.updateCampaignRaisedAmount(campaign.getCampaignId(), savedDonation.getAmount());
+            campaignStatsService.recordDonations(campaign.getCampaignId(), List.of(savedDonation),
+                    lastDonation.isEmpty() ? 1 : 0);
+            donationRollupService.recordDonations(campaign.getCampaignId(), List.of(savedDonation), lastDonation);
+            return null;
+        });
+
+        DonationDTO result = convertToDTO(savedDonation);
+        progressBroadcaster.donationCommitted(result);
+        return result;
+    }
+
+    /**
+     * Record a batch of donations in one transaction.
+     * Each wallet is locked once and gets one ledger entry per donation, referencing its
+     * transaction id; each campaign is updated once with the aggregated amount, and donation
+     * rows are written with JDBC batch inserts. Returns one result per input item.
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public List<DonationBatchResultDTO> makeDonations(List<DonationDTO> donationDTOs) {
+        if (donationDTOs.size() > maxBatchSize) {
+            throw new RuntimeException("Batch contains " + donationDTOs.size() +
+                    " donations, the maximum is " + maxBatchSize);
         }
+        return makeDonations(donationDTOs, Collections.nCopies(donationDTOs.size(), null));
+    }
+
+    /**
+     * Record a batch of donations, completing each successful item's Idempotency-Key claim
+     * (null for items without one) in the batch transaction
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public List<DonationBatchResultDTO> makeDonations(List<DonationDTO> donationDTOs, List<IdempotencyService.Claim> claims) {
+        return retryExecutor.execute("donation_batch",
+                () -> donationTransaction().execute(status -> recordDonations(donationDTOs, claims)));
+    }
+
+    private List<DonationBatchResultDTO> recordDonations(List<DonationDTO> donationDTOs,
+                                                         List<IdempotencyService.Claim> claims) {
+        DonationBatchResultDTO[] results = new DonationBatchResultDTO[donationDTOs.size()];
 
-        // 5. Save updated user balance
-        userRepository.save(user);
+        // 1. Load every referenced campaign and user with one query each
+        Map<Long, Campaign> campaigns = loadCampaigns(donationDTOs.stream()
+                        .map(DonationDTO::getCampaignId).filter(Objects::nonNull).collect(Collectors.toSet()))
+                .stream().collect(Collectors.toMap(Campaign::getCampaignId, Function.identity()));
+        Map<Long, User> users = userRepository.findAllById(donationDTOs.stream()
+                        .map(DonationDTO::getUserId).filter(Objects::nonNull).collect(Collectors.toSet()))
+                .stream().collect(Collectors.toMap(User::getUserId, Function.identity()));
+
+        // 2. Validate each item and reserve its amount against the wallet, in request order
+        Map<Long, BigDecimal> remainingBalances = new HashMap<>(walletService.getBalances(users.keySet()));
+
+        // Wallets and campaigns are written in id order, so concurrent batches lock rows in the same order
+        Map<Long, List<Integer>> acceptedByUser = new TreeMap<>();
+        for (int i = 0; i < donationDTOs.size(); i++) {
+            DonationDTO dto = donationDTOs.get(i);
+            DonationBatchResultDTO failure = validateBatchItem(i, dto, users, campaigns);
+            if (failure == null && remainingBalances.getOrDefault(dto.getUserId(), BigDecimal.ZERO).compareTo(dto.getAmount()) < 0) {
+                failure = DonationBatchResultDTO.failed(i, "insufficient_balance",
+                        "Insufficient wallet balance for user " + dto.getUserId());
+            }
+            if (failure != null) {
+                results[i] = failure;
+                continue;
+            }
+            remainingBalances.merge(dto.getUserId(), dto.getAmount(), BigDecimal::subtract);
+            acceptedByUser.computeIfAbsent(dto.getUserId(), id -> new ArrayList<>()).add(i);
+        }
 
-        // 6. Create and save donation record
-        Donation donation = new Donation();
-        donation.setUser(user);
-        donation.setCampaign(campaign);
-        donation.setAmount(donationDTO.getAmount());
-        donation.setPaymentMode(donationDTO.getPaymentMode());
-        donation.setPaymentStatus("PAID"); // Payment successful after wallet deduction
-        donation.setTransactionId(generateTransactionId());
+        // 3. Debit each wallet in one call, with a ledger entry per donation
+        List<Donation> donations = new ArrayList<>();
+        List<Integer> donationIndexes = new ArrayList<>();
+        Map<Long, BigDecimal> campaignDeltas = new TreeMap<>();
+        acceptedByUser.forEach((userId, indexes) -> {
+            Map<String, BigDecimal> amountsByTransactionId = new LinkedHashMap<>();
+            indexes.forEach(i -> amountsByTransactionId.put(
+                    transactionIdGenerator.nextTransactionId(), donationDTOs.get(i).getAmount()));
 
-        Donation savedDonation = donationRepository.save(donation);
+            if (!walletService.debitEach(userId, amountsByTransactionId)) {
+                // Balance changed concurrently since it was read in step 1
+                indexes.forEach(i -> results[i] = DonationBatchResultDTO.failed(i, "insufficient_balance",
+                        "Insufficient wallet balance for user " + userId));
+                return;
+            }
 
-        // 7. Update campaign raised amount
-        campaignService.updateCampaignRaisedAmount(campaign.getCampaignId(), donation.getAmount());
+            Iterator<String> transactionIds = amountsByTransactionId.keySet().iterator();
+            for (Integer i : indexes) {
+                DonationDTO dto = donationDTOs.get(i);
+                Donation donation = new Donation();
+                donation.setUser(users.get(userId));
+                donation.setCampaign(campaigns.get(dto.getCampaignId()));
+                donation.setAmount(dto.getAmount());
+                donation.setPaymentMode(dto.getPaymentMode());
+                donation.setPaymentStatus("PAID");
+                donation.setTransactionId(transactionIds.next());
+                donations.add(donation);
+                donationIndexes.add(i);
+                campaignDeltas.merge(dto.getCampaignId(), dto.getAmount(), BigDecimal::add);
+            }
+        });
 
-        return convertToDTO(savedDonation);
+        // 4. Look up existing donors of the affected campaigns, then insert donation rows
+        //    (JDBC-batched by Hibernate on flush)
+        Map<Long, Map<Long, LocalDateTime>> lastDonationsByCampaign = donations.isEmpty()
+                ? Map.of()
+                : lastPaidDonations(campaignDeltas.keySet(), acceptedByUser.keySet());
+        donationRepository.saveAll(donations);
+        donationRepository.flush();
+
+        // 5. Update each campaign, its stats and its rollups once
+        Map<Long, List<Donation>> donationsByCampaign = donations.stream()
+                .collect(Collectors.groupingBy(d -> d.getCampaign().getCampaignId(), TreeMap::new, Collectors.toList()));
+        donationsByCampaign.forEach((campaignId, campaignDonations) -> {
+            Map<Long, LocalDateTime> lastDonations = lastDonationsByCampaign.getOrDefault(campaignId, Map.of());
+            Set<Long> donors = new HashSet<>(lastDonations.keySet());
+            long newDonors = 0;
+            for (Donation donation : campaignDonations) {
+                if (donors.add(donation.getUser().getUserId())) {
+                    newDonors++;
+                }
+            }
+            campaignService.updateCampaignRaisedAmount(campaignId, campaignDeltas.get(campaignId));
+            campaignStatsService.recordDonations(campaignId, campaignDonations, newDonors);
+            donationRollupService.recordDonations(campaignId, campaignDonations, lastDonations);
+            progressBroadcaster.donationCommitted(convertToDTO(campaignDonations.get(campaignDonations.size() - 1)));
+        });
+
+        for (int j = 0; j < donations.size(); j++) {
+            int i = donationIndexes.get(j);
+            DonationDTO donation = convertToDTO(donations.get(j));
+            idempotencyService.completeClaim(claims.get(i), HttpStatus.CREATED, donation);
+            results[i] = DonationBatchResultDTO.success(i, donation);
+        }
+        return Arrays.asList(results);
     }
 
-    public List<DonationDTO> getAllDonations() {
-        return donationRepository.findAll().stream()
-                .map(this::convertToDTO)
-                .collect(Collectors.toList());
+    public DonationDTO getDonationByTransactionId(String transactionId) {
+        String normalized = TransactionIdGenerator.normalize(transactionId);
+        Donation donation = donationRepository.findByTransactionId(normalized)
+                .orElseThrow(() -> new RuntimeException("Donation not found with transaction id: " + normalized));
+        return convertToDTO(donation);
     }
 
     public DonationDTO getDonationById(Long id) {
@@ -102,6 +319,42 @@ public class DonationService {
                 .collect(Collectors.toList());
     }
 
+    public CursorPageDTO<DonationDTO> getDonationsPage(String cursor, int size) {
+        Pageable pageable = PageRequest.ofSize(CursorPageDTO.boundedSize(size));
+        Slice<Donation> slice;
+        if (cursor == null || cursor.isBlank()) {
+            slice = donationRepository.findPage(pageable);
+        } else {
+            PageCursor after = PageCursor.decode(cursor);
+            slice = donationRepository.findPageAfter(after.timestamp(), after.id(), pageable);
+        }
+        return CursorPageDTO.of(slice, this::convertToDTO, this::cursorOf);
+    }
+
+    public CursorPageDTO<DonationDTO> getDonationsPageByUser(Long userId, String cursor, int size) {
+        Pageable pageable = PageRequest.ofSize(CursorPageDTO.boundedSize(size));
+        Slice<Donation> slice;
+        if (cursor == null || cursor.isBlank()) {
+            slice = donationRepository.findPageByUser(userId, pageable);
+        } else {
+            PageCursor after = PageCursor.decode(cursor);
+            slice = donationRepository.findPageByUserAfter(userId, after.timestamp(), after.id(), pageable);
+        }
+        return CursorPageDTO.of(slice, this::convertToDTO, this::cursorOf);
+    }
+
+    public CursorPageDTO<DonationDTO> getDonationsPageByCampaign(Long campaignId, String cursor, int size) {
+        Pageable pageable = PageRequest.ofSize(CursorPageDTO.boundedSize(size));
+        Slice<Donation> slice;
+        if (cursor == null || cursor.isBlank()) {
+            slice = donationRepository.findPageByCampaign(campaignId, pageable);
+        } else {
+            PageCursor after = PageCursor.decode(cursor);
+            slice = donationRepository.findPageByCampaignAfter(campaignId, after.timestamp(), after.id(), pageable);
+        }
+        return CursorPageDTO.of(slice, this::convertToDTO, this::cursorOf);
+    }
+
     public BigDecimal getTotalDonationsByUser(Long userId) {
         List<Donation> donations = donationRepository.findByUserUserId(userId);
         return donations.stream()
@@ -110,8 +363,82 @@ public class DonationService {
                 .reduce(BigDecimal.ZERO, BigDecimal::add);
     }
 
-    private String generateTransactionId() {
-        return "TXN" + UUID.randomUUID().toString().substring(0, 8).toUpperCase();
+    /**
+     * Latest PAID donation date per campaign and user, for users who already donated to the campaign
+     */
+    private Map<Long, Map<Long, LocalDateTime>> lastPaidDonations(Collection<Long> campaignIds, Collection<Long> userIds) {
+        Map<Long, Map<Long, LocalDateTime>> lastDonations = new HashMap<>();
+        donationRepository.findLastPaidDonations(campaignIds, userIds)
+                .forEach(row -> lastDonations.computeIfAbsent((Long) row[0], id -> new HashMap<>())
+                        .put((Long) row[1], (LocalDateTime) row[2]));
+        return lastDonations;
+    }
+
+    private DonationBatchResultDTO validateBatchItem(int index, DonationDTO dto,
+                                                     Map<Long, User> users, Map<Long, Campaign> campaigns) {
+        if (dto.getUserId() == null || dto.getCampaignId() == null || dto.getAmount() == null) {
+            return DonationBatchResultDTO.failed(index, "missing_fields", "User ID, campaign ID and amount are required");
+        }
+        if (dto.getAmount().compareTo(BigDecimal.ONE) < 0) {
+            return DonationBatchResultDTO.failed(index, "below_minimum", "Minimum donation amount is ₹1");
+        }
+        if (!users.containsKey(dto.getUserId())) {
+            return DonationBatchResultDTO.failed(index, "user_not_found", "User not found with id: " + dto.getUserId());
+        }
+        Campaign campaign = campaigns.get(dto.getCampaignId());
+        if (campaign == null) {
+            return DonationBatchResultDTO.failed(index, "campaign_not_found",
+                    "Campaign not found with id: " + dto.getCampaignId());
+        }
+        if (!campaign.isActive() || raisedAmountAccumulator.hasReachedGoal(campaign)) {
+            return DonationBatchResultDTO.failed(index, "campaign_inactive", "Campaign is not active. Cannot accept donations.");
+        }
+        return null;
+    }
+
+    /**
+     * Load campaigns for a donation; in locking counter mode they are locked (SELECT ... FOR UPDATE)
+     * until the transaction ends, otherwise concurrent updates are caught by their version
+     */
+    private List<Campaign> loadCampaigns(Set<Long> campaignIds) {
+        if ("locking".equalsIgnoreCase(counterMode)) {
+            return campaignRepository.findAllByIdForUpdate(campaignIds);
+        }
+        return campaignRepository.findAllById(campaignIds);
+    }
+
+    /**
+     * Time one stage of a single donation
+     */
+    private <T> T timeStage(String stage, Supplier<T> step) {
+        return Timer.builder("donation.stage")
+                .description("Single donation, per stage")
+                .tag("stage", stage)
+                .register(meterRegistry)
+                .record(step);
+    }
+
+    /**
+     * Donation transactions run at READ COMMITTED. Under REPEATABLE READ the snapshot is taken at
+     * the first read, before the wallet lock, so a donor check after the lock could miss a
+     * donation the same donor committed while this transaction waited for that lock.
+     */
+    private TransactionTemplate donationTransaction() {
+        TransactionTemplate template = new TransactionTemplate(transactionTemplate.getTransactionManager());
+        template.setIsolationLevel(TransactionDefinition.ISOLATION_READ_COMMITTED);
+        return template;
+    }
+
+    /**
+     * Count a rejected donation by reason and build the error to throw
+     */
+    private RuntimeException rejected(String reason, String message) {
+        meterRegistry.counter("donation.rejected", "reason", reason).increment();
+        return new RuntimeException(message);
+    }
+
+    private PageCursor cursorOf(Donation donation) {
+        return new PageCursor(donation.getDonationDate(), donation.getDonationId());
     }
 
     private DonationDTO convertToDTO(Donation donation) {
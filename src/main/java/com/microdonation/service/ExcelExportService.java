@@ -3,15 +3,19 @@ package com.microdonation.service;
 import com.microdonation.dto.CampaignReportDTO;
 import com.microdonation.dto.DonationDTO;
 import com.microdonation.dto.UserReportDTO;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.RequiredArgsConstructor;
 import org.apache.poi.ss.usermodel.*;
-import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
 import org.springframework.stereotype.Service;
 
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.text.DecimalFormat;
 import java.time.format.DateTimeFormatter;
+import java.util.stream.Stream;
 
 @Service
 @RequiredArgsConstructor
@@ -19,13 +23,37 @@ public class ExcelExportService {
 
     private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
     private static final DecimalFormat DECIMAL_FORMAT = new DecimalFormat("#,##0.00");
+    private static final int ROW_WINDOW = 100;
+    private static final int LABEL_COLUMN_CHARS = 18;
+    private static final int MAX_COLUMN_CHARS = 60;
+
+    private final MeterRegistry meterRegistry;
 
     /**
      * Generate Campaign Report Excel
      */
     public byte[] generateCampaignReportExcel(CampaignReportDTO report) throws IOException {
-        try (Workbook workbook = new XSSFWorkbook(); ByteArrayOutputStream out = new ByteArrayOutputStream()) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        writeCampaignReportExcel(report, out);
+        return out.toByteArray();
+    }
+
+    /**
+     * Generate User Report Excel
+     */
+    public byte[] generateUserReportExcel(UserReportDTO report) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        writeUserReportExcel(report, out);
+        return out.toByteArray();
+    }
 
+    /**
+     * Stream Campaign Report Excel to the given output
+     */
+    public void writeCampaignReportExcel(CampaignReportDTO report, OutputStream out) throws IOException {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        SXSSFWorkbook workbook = createStreamingWorkbook();
+        try {
             // Create Campaign Summary Sheet
             Sheet summarySheet = workbook.createSheet("Campaign Summary");
             createCampaignSummary(summarySheet, report, workbook);
@@ -39,29 +67,65 @@ public class ExcelExportService {
             createDonationsSheet(topDonorsSheet, report.getTopDonations(), workbook);
 
             workbook.write(out);
-            return out.toByteArray();
+        } finally {
+            workbook.dispose();
+            workbook.close();
+            sample.stop(exportTimer("campaign"));
         }
     }
 
     /**
-     * Generate User Report Excel
+     * Stream User Report Excel to the given output
      */
-    public byte[] generateUserReportExcel(UserReportDTO report) throws IOException {
-        try (Workbook workbook = new XSSFWorkbook(); ByteArrayOutputStream out = new ByteArrayOutputStream()) {
+    public void writeUserReportExcel(UserReportDTO report, OutputStream out) throws IOException {
+        writeUserReportExcel(report, report.getDonationHistory().stream(), out);
+    }
 
+    /**
+     * Stream User Report Excel to the given output, writing the donation history as it is read
+     * (see ReportService.writeUserReport)
+     */
+    public void writeUserReportExcel(UserReportDTO report, Stream<DonationDTO> donationHistory, OutputStream out) throws IOException {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        SXSSFWorkbook workbook = createStreamingWorkbook();
+        try {
             // Create User Summary Sheet
             Sheet summarySheet = workbook.createSheet("User Summary");
             createUserSummary(summarySheet, report, workbook);
 
             // Create Donation History Sheet
             Sheet historySheet = workbook.createSheet("Donation History");
-            createDonationsSheet(historySheet, report.getDonationHistory(), workbook);
+            createDonationsSheet(historySheet, donationHistory::iterator, workbook);
 
             workbook.write(out);
-            return out.toByteArray();
+        } finally {
+            workbook.dispose();
+            workbook.close();
+            sample.stop(exportTimer("user"));
         }
     }
 
+    /**
+     * Render timer for one report type
+     */
+    private Timer exportTimer(String report) {
+        return Timer.builder("export.render")
+                .description("Report export rendering")
+                .tag("format", "excel")
+                .tag("report", report)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Streaming workbook: only the last ROW_WINDOW rows of each sheet are kept in memory,
+     * older rows are flushed to a compressed temp file
+     */
+    private SXSSFWorkbook createStreamingWorkbook() {
+        SXSSFWorkbook workbook = new SXSSFWorkbook(ROW_WINDOW);
+        workbook.setCompressTempFiles(true);
+        return workbook;
+    }
+
     /**
      * Create Campaign Summary Sheet
      */
@@ -92,13 +156,13 @@ public class ExcelExportService {
         addDataRow(sheet, rowNum++, "Raised Amount:", "₹ " + DECIMAL_FORMAT.format(report.getRaisedAmount()), headerStyle, dataStyle);
         addDataRow(sheet, rowNum++, "Progress:", String.format("%.2f%%", report.getProgressPercentage()), headerStyle, dataStyle);
         addDataRow(sheet, rowNum++, "Total Donors:", report.getTotalDonors().toString(), headerStyle, dataStyle);
+        addDataRow(sheet, rowNum++, "Total Donations:", report.getTotalDonations().toString(), headerStyle, dataStyle);
         addDataRow(sheet, rowNum++, "Status:", report.getStatus(), headerStyle, dataStyle);
         addDataRow(sheet, rowNum++, "Start Date:", report.getStartDate(), headerStyle, dataStyle);
         addDataRow(sheet, rowNum++, "End Date:", report.getEndDate(), headerStyle, dataStyle);
 
-        // Auto-size columns
-        sheet.autoSizeColumn(0);
-        sheet.autoSizeColumn(1);
+        sheet.setColumnWidth(0, columnWidth(LABEL_COLUMN_CHARS));
+        sheet.setColumnWidth(1, columnWidth(MAX_COLUMN_CHARS));
     }
 
     /**
@@ -130,26 +194,27 @@ public class ExcelExportService {
         addDataRow(sheet, rowNum++, "Total Donated:", "₹ " + DECIMAL_FORMAT.format(report.getTotalDonated()), headerStyle, dataStyle);
         addDataRow(sheet, rowNum++, "Total Donations:", report.getTotalDonations().toString(), headerStyle, dataStyle);
 
-        // Auto-size columns
-        sheet.autoSizeColumn(0);
-        sheet.autoSizeColumn(1);
+        sheet.setColumnWidth(0, columnWidth(LABEL_COLUMN_CHARS));
+        sheet.setColumnWidth(1, columnWidth(MAX_COLUMN_CHARS));
     }
 
     /**
      * Create Donations Sheet (for both recent donations and top donations)
      */
-    private void createDonationsSheet(Sheet sheet, java.util.List<DonationDTO> donations, Workbook workbook) {
+    private void createDonationsSheet(Sheet sheet, Iterable<DonationDTO> donations, Workbook workbook) {
         CellStyle headerStyle = createHeaderStyle(workbook);
         CellStyle dataStyle = createDataStyle(workbook);
 
         // Create header row
         Row headerRow = sheet.createRow(0);
         String[] headers = {"Donation ID", "User Name", "Campaign Title", "Amount (₹)", "Date", "Payment Status", "Payment Mode", "Transaction ID"};
+        int[] maxChars = new int[headers.length];
 
         for (int i = 0; i < headers.length; i++) {
             Cell cell = headerRow.createCell(i);
             cell.setCellValue(headers[i]);
             cell.setCellStyle(headerStyle);
+            maxChars[i] = headers[i].length();
         }
 
         // Create data rows
@@ -157,27 +222,44 @@ public class ExcelExportService {
         for (DonationDTO donation : donations) {
             Row row = sheet.createRow(rowNum++);
 
+            String[] values = {
+                    String.valueOf(donation.getDonationId()),
+                    donation.getUserName(),
+                    donation.getCampaignTitle(),
+                    DECIMAL_FORMAT.format(donation.getAmount()),
+                    donation.getDonationDate().format(DATE_FORMATTER),
+                    donation.getPaymentStatus(),
+                    donation.getPaymentMode() != null ? donation.getPaymentMode() : "N/A",
+                    donation.getTransactionId() != null ? donation.getTransactionId() : "N/A"
+            };
+
             row.createCell(0).setCellValue(donation.getDonationId());
-            row.createCell(1).setCellValue(donation.getUserName());
-            row.createCell(2).setCellValue(donation.getCampaignTitle());
-            row.createCell(3).setCellValue(DECIMAL_FORMAT.format(donation.getAmount()));
-            row.createCell(4).setCellValue(donation.getDonationDate().format(DATE_FORMATTER));
-            row.createCell(5).setCellValue(donation.getPaymentStatus());
-            row.createCell(6).setCellValue(donation.getPaymentMode() != null ? donation.getPaymentMode() : "N/A");
-            row.createCell(7).setCellValue(donation.getTransactionId() != null ? donation.getTransactionId() : "N/A");
-
-            // Apply data style to all cells
-            for (int i = 0; i < 8; i++) {
+            for (int i = 1; i < values.length; i++) {
+                row.createCell(i).setCellValue(values[i]);
+            }
+
+            // Apply data style to all cells and track the widest value per column
+            for (int i = 0; i < values.length; i++) {
                 row.getCell(i).setCellStyle(dataStyle);
+                if (values[i] != null) {
+                    maxChars[i] = Math.max(maxChars[i], values[i].length());
+                }
             }
         }
 
-        // Auto-size all columns
+        // Size columns from the tracked character counts (autoSizeColumn would rescan every row)
         for (int i = 0; i < headers.length; i++) {
-            sheet.autoSizeColumn(i);
+            sheet.setColumnWidth(i, columnWidth(maxChars[i]));
         }
     }
 
+    /**
+     * Column width in POI units (1/256 of a character) with padding, capped at MAX_COLUMN_CHARS
+     */
+    private int columnWidth(int chars) {
+        return Math.min(chars + 2, MAX_COLUMN_CHARS) * 256;
+    }
+
     /**
      * Helper method to add a data row with label and value
      */
@@ -0,0 +1,305 @@
+package com.microdonation.service;
+
+import com.microdonation.dto.ExportJobDTO;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Pattern;
+
+/**
+ * Renders report exports in the background.
+ *
+ * Jobs run on a fixed-size worker pool with a bounded queue and write their file to a
+ * spool directory, from where it can be downloaded until the retention period ends.
+ * A job is identified by report, format and a version of the report data (see
+ * ReportService.get*ReportVersion): submitting an export whose identical job is queued,
+ * running or finished returns that job instead of rendering again. Only the version is read
+ * on the request thread; the report itself is built by the worker.
+ *
+ * Expired jobs stop accepting downloads at the end of the retention period; their file is
+ * deleted once no download is in progress and the grace period has passed as well.
+ */
+@Slf4j
+@Service
+public class ExportJobService {
+
+    public static final String FORMAT_PDF = "pdf";
+    public static final String FORMAT_EXCEL = "excel";
+
+    private static final String STATUS_QUEUED = "QUEUED";
+    private static final String STATUS_RUNNING = "RUNNING";
+    private static final String STATUS_COMPLETED = "COMPLETED";
+    private static final String STATUS_FAILED = "FAILED";
+
+    // Job files are named after the job id: <uuid>.pdf or <uuid>.xlsx, plus .part while rendering
+    private static final Pattern JOB_FILE_NAME = Pattern.compile(
+            "[0-9a-f]{8}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{12}\\.(pdf|xlsx)(\\.part)?");
+
+    private final Map<String, ExportJob> jobsById = new ConcurrentHashMap<>();
+    private final Map<String, ExportJob> jobsByKey = new ConcurrentHashMap<>();
+
+    private final ReportService reportService;
+    private final PdfExportService pdfExportService;
+    private final ExcelExportService excelExportService;
+    private final ThreadPoolExecutor executor;
+    private final Path spoolDir;
+    private final long retentionMinutes;
+    private final long downloadGraceMinutes;
+
+    public ExportJobService(ReportService reportService,
+                            PdfExportService pdfExportService,
+                            ExcelExportService excelExportService,
+                            @Value("${export.spool-dir}") String spoolDir,
+                            @Value("${export.workers:2}") int workers,
+                            @Value("${export.queue-capacity:50}") int queueCapacity,
+                            @Value("${export.retention-minutes:60}") long retentionMinutes,
+                            @Value("${export.download-grace-minutes:10}") long downloadGraceMinutes) {
+        this.reportService = reportService;
+        this.pdfExportService = pdfExportService;
+        this.excelExportService = excelExportService;
+        this.spoolDir = Paths.get(spoolDir).toAbsolutePath();
+        this.retentionMinutes = retentionMinutes;
+        this.downloadGraceMinutes = downloadGraceMinutes;
+
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(workers, workers, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "export-worker-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    /**
+     * Create the spool directory and remove job files left over from a previous run.
+     * Anything else in the directory is left alone.
+     */
+    @PostConstruct
+    public void initSpoolDirectory() throws IOException {
+        Files.createDirectories(spoolDir);
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(spoolDir,
+                file -> Files.isRegularFile(file) && JOB_FILE_NAME.matcher(file.getFileName().toString()).matches())) {
+            for (Path file : files) {
+                deleteQuietly(file);
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    public ExportJobDTO submitCampaignExport(Long campaignId, String format) {
+        String fileName = "campaign_report_" + campaignId + extension(format);
+        String dataVersion = reportService.getCampaignReportVersion(campaignId);
+        if (FORMAT_PDF.equals(format)) {
+            return submit("campaign:" + campaignId, format, dataVersion, fileName,
+                    out -> pdfExportService.writeCampaignReportPdf(reportService.getCampaignReport(campaignId), out));
+        }
+        return submit("campaign:" + campaignId, format, dataVersion, fileName,
+                out -> excelExportService.writeCampaignReportExcel(reportService.getCampaignReport(campaignId), out));
+    }
+
+    public ExportJobDTO submitUserExport(Long userId, String format) {
+        String fileName = "user_report_" + userId + extension(format);
+        String dataVersion = reportService.getUserReportVersion(userId);
+        if (FORMAT_PDF.equals(format)) {
+            return submit("user:" + userId, format, dataVersion, fileName,
+                    out -> reportService.writeUserReport(userId,
+                            (report, history) -> pdfExportService.writeUserReportPdf(report, history, out)));
+        }
+        return submit("user:" + userId, format, dataVersion, fileName,
+                out -> reportService.writeUserReport(userId,
+                        (report, history) -> excelExportService.writeUserReportExcel(report, history, out)));
+    }
+
+    public ExportJobDTO getJob(String jobId) {
+        return convertToDTO(findJob(jobId));
+    }
+
+    /**
+     * Start downloading the spooled file of a completed job. The file is kept until
+     * endDownload() is called, which must follow in a finally block.
+     */
+    public Path beginDownload(String jobId) {
+        ExportJob job = findJob(jobId);
+        if (!STATUS_COMPLETED.equals(job.status)) {
+            throw new RuntimeException("Export job " + jobId + " is not completed (status " + job.status + ")");
+        }
+        job.activeDownloads.incrementAndGet();
+        if (job.expired) {
+            // Raced with purgeExpiredJobs()
+            job.activeDownloads.decrementAndGet();
+            throw new RuntimeException("Export job not found with id: " + jobId);
+        }
+        return job.file;
+    }
+
+    public void endDownload(String jobId) {
+        ExportJob job = jobsById.get(jobId);
+        if (job != null) {
+            job.activeDownloads.decrementAndGet();
+        }
+    }
+
+    /**
+     * Expire finished jobs once the retention period has passed, and delete their files after
+     * the grace period when no download is in progress. The grace period also covers files
+     * handed to the container's sendfile support, which opens them after the request returns.
+     */
+    @Scheduled(fixedDelayString = "${export.cleanup-interval-ms:60000}")
+    public void purgeExpiredJobs() {
+        LocalDateTime expiry = LocalDateTime.now().minusMinutes(retentionMinutes);
+        LocalDateTime deletion = expiry.minusMinutes(downloadGraceMinutes);
+        jobsById.values().forEach(job -> {
+            if (job.completedAt == null || !job.completedAt.isBefore(expiry)) {
+                return;
+            }
+            if (!job.expired) {
+                job.expired = true;
+                jobsByKey.remove(job.key, job);
+            }
+            if (job.completedAt.isBefore(deletion) && job.activeDownloads.get() == 0 && deleteQuietly(job.file)) {
+                jobsById.remove(job.jobId);
+            }
+        });
+    }
+
+    private ExportJobDTO submit(String target, String format, String dataVersion, String fileName, ReportWriter writer) {
+        String key = target + ":" + format + ":" + dataVersion;
+
+        ExportJob[] created = new ExportJob[1];
+        ExportJob job = jobsByKey.compute(key, (k, existing) -> {
+            if (existing != null && !STATUS_FAILED.equals(existing.status)) {
+                return existing;
+            }
+            created[0] = new ExportJob(UUID.randomUUID().toString(), key, format, fileName);
+            return created[0];
+        });
+
+        if (job == created[0]) {
+            jobsById.put(job.jobId, job);
+            try {
+                executor.execute(() -> render(job, writer));
+            } catch (RejectedExecutionException e) {
+                jobsByKey.remove(key, job);
+                jobsById.remove(job.jobId);
+                throw new RejectedExecutionException("Export queue is full, please try again later");
+            }
+        }
+        return convertToDTO(job);
+    }
+
+    private void render(ExportJob job, ReportWriter writer) {
+        job.status = STATUS_RUNNING;
+        Path file = spoolDir.resolve(job.jobId + extension(job.format));
+        Path partial = spoolDir.resolve(file.getFileName() + ".part");
+        try {
+            try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(partial))) {
+                writer.write(out);
+            }
+            Files.move(partial, file, StandardCopyOption.ATOMIC_MOVE);
+            job.file = file;
+            job.completedAt = LocalDateTime.now();
+            job.status = STATUS_COMPLETED;
+        } catch (IOException | RuntimeException e) {
+            log.warn("Export job {} ({}) failed", job.jobId, job.key, e);
+            deleteQuietly(partial);
+            job.error = e.getMessage();
+            job.completedAt = LocalDateTime.now();
+            job.status = STATUS_FAILED;
+        }
+    }
+
+    private ExportJob findJob(String jobId) {
+        ExportJob job = jobsById.get(jobId);
+        if (job == null || job.expired) {
+            throw new RuntimeException("Export job not found with id: " + jobId);
+        }
+        return job;
+    }
+
+    private String extension(String format) {
+        if (FORMAT_PDF.equals(format)) {
+            return ".pdf";
+        }
+        if (FORMAT_EXCEL.equals(format)) {
+            return ".xlsx";
+        }
+        throw new RuntimeException("Unsupported export format: " + format);
+    }
+
+    private boolean deleteQuietly(Path file) {
+        if (file == null) {
+            return true;
+        }
+        try {
+            Files.deleteIfExists(file);
+            return true;
+        } catch (IOException e) {
+            log.warn("Could not delete spooled export {}", file, e);
+            return false;
+        }
+    }
+
+    private ExportJobDTO convertToDTO(ExportJob job) {
+        ExportJobDTO dto = new ExportJobDTO();
+        dto.setJobId(job.jobId);
+        dto.setStatus(job.status);
+        dto.setFormat(job.format);
+        dto.setFileName(job.fileName);
+        dto.setError(job.error);
+        dto.setCreatedAt(job.createdAt);
+        dto.setCompletedAt(job.completedAt);
+        return dto;
+    }
+
+    @FunctionalInterface
+    private interface ReportWriter {
+        void write(OutputStream out) throws IOException;
+    }
+
+    private static final class ExportJob {
+        private final String jobId;
+        private final String key;
+        private final String format;
+        private final String fileName;
+        private final LocalDateTime createdAt = LocalDateTime.now();
+        private volatile String status = STATUS_QUEUED;
+        private volatile Path file;
+        private volatile String error;
+        private volatile LocalDateTime completedAt;
+        private volatile boolean expired;
+        private final AtomicInteger activeDownloads = new AtomicInteger();
+
+        private ExportJob(String jobId, String key, String format, String fileName) {
+            this.jobId = jobId;
+            this.key = key;
+            this.format = format;
+            this.fileName = fileName;
+        }
+    }
+}
@@ -0,0 +1,254 @@
+package com.microdonation.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.microdonation.config.CacheConfig;
+import com.microdonation.dto.IdempotentResponse;
+import com.microdonation.model.IdempotencyRecord;
+import com.microdonation.repository.IdempotencyRecordRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.UUID;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Two-tier store of responses to requests made with an Idempotency-Key, shared by all
+ * instances through the idempotency_keys table.
+ *
+ * A request claims its key with an insert (IN_PROGRESS) before it runs, so a concurrent
+ * duplicate on any instance finds the claim and waits for the response instead of running
+ * again. The donation or top-up completes the claim with its response in its own transaction,
+ * so the key is completed exactly when the business change commits. Completed responses are
+ * also kept in a bounded Caffeine cache. A claim left by a crashed instance can be taken over
+ * once claim-ttl-seconds have passed.
+ */
+@Slf4j
+@Service
+public class IdempotencyService {
+
+    private static final long POLL_MS = 100;
+
+    // Claim of the request the current thread is processing, set by acquire() and cleared by finish()
+    private final ThreadLocal<Claim> currentClaim = new ThreadLocal<>();
+
+    private final IdempotencyRecordRepository idempotencyRecordRepository;
+    private final Cache cache;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final long ttlHours;
+    private final long claimTtlSeconds;
+
+    public IdempotencyService(IdempotencyRecordRepository idempotencyRecordRepository,
+                              CacheManager cacheManager,
+                              ObjectMapper objectMapper,
+                              PlatformTransactionManager transactionManager,
+                              @Value("${idempotency.ttl-hours:24}") long ttlHours,
+                              @Value("${idempotency.claim-ttl-seconds:120}") long claimTtlSeconds) {
+        this.idempotencyRecordRepository = idempotencyRecordRepository;
+        this.cache = cacheManager.getCache(CacheConfig.IDEMPOTENCY);
+        this.objectMapper = objectMapper;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.ttlHours = ttlHours;
+        this.claimTtlSeconds = claimTtlSeconds;
+    }
+
+    /**
+     * Return the stored response for the key, waiting while another request holds its claim.
+     * Returns null when the key was claimed for the caller, which must then process the request
+     * on this thread and call finish() once done.
+     */
+    public IdempotentResponse acquire(String key, String fingerprint, long timeoutMs)
+            throws InterruptedException, TimeoutException {
+        long deadline = System.currentTimeMillis() + timeoutMs;
+        while (true) {
+            IdempotentResponse cached = cache.get(key, IdempotentResponse.class);
+            if (cached != null) {
+                return cached;
+            }
+
+            Claim claim = new Claim(key, fingerprint, UUID.randomUUID().toString());
+            if (tryClaim(claim)) {
+                currentClaim.set(claim);
+                return null;
+            }
+
+            IdempotentResponse stored = findCompleted(key);
+            if (stored != null) {
+                return stored;
+            }
+            if (System.currentTimeMillis() > deadline) {
+                throw new TimeoutException("Idempotency key " + key + " is still claimed");
+            }
+            Thread.sleep(POLL_MS);
+        }
+    }
+
+    /**
+     * Claim held by the request the current thread is processing, or null
+     */
+    public Claim currentClaim() {
+        return currentClaim.get();
+    }
+
+    /**
+     * Complete a claim with the response of its request, in the caller's transaction, so the key
+     * is completed if and only if that transaction commits. Fails, rolling the transaction back,
+     * when the claim was released or taken over meanwhile. Does nothing without a claim.
+     */
+    public void completeClaim(Claim claim, HttpStatus status, Object body) {
+        if (claim == null) {
+            return;
+        }
+        byte[] json;
+        try {
+            json = objectMapper.writeValueAsBytes(body);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to serialize the response for idempotency key " + claim.key, e);
+        }
+        IdempotentResponse response = new IdempotentResponse(claim.fingerprint, status.value(),
+                MediaType.APPLICATION_JSON_VALUE, json);
+        store(claim, response);
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    claim.completed = response;
+                }
+            });
+        } else {
+            claim.completed = response;
+        }
+    }
+
+    /**
+     * Keep the claim after its request ends without a response, because the request's
+     * transaction may still commit (and complete the claim) later
+     */
+    public void retainClaim(Claim claim) {
+        if (claim != null) {
+            claim.retained = true;
+        }
+    }
+
+    /**
+     * End the request holding the current thread's claim. A claim completed by the request's
+     * transaction is cached; a successful response (result) that no transaction completed is
+     * stored now; otherwise the claim is released so the key can be retried.
+     */
+    public void finish(IdempotentResponse result) {
+        Claim claim = currentClaim.get();
+        currentClaim.remove();
+        if (claim == null) {
+            return;
+        }
+        try {
+            if (claim.completed != null) {
+                cache.put(claim.key, claim.completed);
+            } else if (result != null) {
+                transactionTemplate.executeWithoutResult(status -> store(claim, result));
+                cache.put(claim.key, result);
+            } else if (!claim.retained) {
+                transactionTemplate.executeWithoutResult(status ->
+                        idempotencyRecordRepository.release(claim.key, claim.ownerToken));
+            }
+        } catch (RuntimeException e) {
+            // An unreleased claim expires after claim-ttl-seconds
+            log.warn("Failed to finish idempotency key {}", claim.key, e);
+        }
+    }
+
+    /**
+     * Remove expired responses and abandoned claims from the database tier
+     */
+    @Scheduled(fixedDelayString = "${idempotency.cleanup-interval-ms:600000}")
+    @Transactional
+    public void purgeExpired() {
+        int purged = idempotencyRecordRepository.deleteExpired(LocalDateTime.now());
+        if (purged > 0) {
+            log.debug("Purged {} expired idempotency keys", purged);
+        }
+    }
+
+    /**
+     * Claim a new key, or one whose claim or response has expired. False when another
+     * request holds the key or has completed it.
+     */
+    private boolean tryClaim(Claim claim) {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime expiresAt = now.plusSeconds(claimTtlSeconds);
+        try {
+            return Boolean.TRUE.equals(transactionTemplate.execute(status -> {
+                if (idempotencyRecordRepository.takeOverExpired(claim.key, claim.fingerprint,
+                        claim.ownerToken, now, expiresAt) > 0) {
+                    return true;
+                }
+                if (idempotencyRecordRepository.existsById(claim.key)) {
+                    return false;
+                }
+                idempotencyRecordRepository.insertClaim(claim.key, claim.fingerprint, claim.ownerToken, now, expiresAt);
+                return true;
+            }));
+        } catch (DataIntegrityViolationException e) {
+            // Another request inserted its claim first
+            return false;
+        }
+    }
+
+    private IdempotentResponse findCompleted(String key) {
+        return idempotencyRecordRepository.findUnexpired(key, LocalDateTime.now())
+                .filter(record -> IdempotencyRecord.COMPLETED.equals(record.getState()))
+                .map(record -> {
+                    IdempotentResponse response = new IdempotentResponse(record.getFingerprint(),
+                            record.getStatusCode(), record.getContentType(),
+                            record.getResponseBody().getBytes(StandardCharsets.UTF_8));
+                    cache.put(key, response);
+                    return response;
+                })
+                .orElse(null);
+    }
+
+    private void store(Claim claim, IdempotentResponse response) {
+        int updated = idempotencyRecordRepository.complete(claim.key, claim.ownerToken, response.status(),
+                response.contentType(), new String(response.body(), StandardCharsets.UTF_8),
+                LocalDateTime.now().plusHours(ttlHours));
+        if (updated == 0) {
+            throw new IllegalStateException("The claim on idempotency key " + claim.key +
+                    " was released or taken over before the request completed");
+        }
+    }
+
+    /**
+     * A key claimed by one request, identified by its owner token
+     */
+    public static final class Claim {
+        private final String key;
+        private final String fingerprint;
+        private final String ownerToken;
+        private volatile IdempotentResponse completed; // set once the completing transaction commits
+        private volatile boolean retained;
+
+        private Claim(String key, String fingerprint, String ownerToken) {
+            this.key = key;
+            this.fingerprint = fingerprint;
+            this.ownerToken = ownerToken;
+        }
+    }
+}
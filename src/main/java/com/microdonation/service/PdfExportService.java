@@ -3,6 +3,8 @@ package com.microdonation.service;
 import com.microdonation.dto.CampaignReportDTO;
 import com.microdonation.dto.DonationDTO;
 import com.microdonation.dto.UserReportDTO;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 
@@ -18,8 +20,10 @@ import com.itextpdf.layout.properties.UnitValue;
 
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.text.DecimalFormat;
 import java.time.format.DateTimeFormatter;
+import java.util.stream.Stream;
 
 @Service
 @RequiredArgsConstructor
@@ -27,14 +31,25 @@ public class PdfExportService {
 
     private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
     private static final DecimalFormat DECIMAL_FORMAT = new DecimalFormat("#,##0.00");
+    private static final int TABLE_FLUSH_ROWS = 100;
+
+    private final MeterRegistry meterRegistry;
 
     /**
      * Generate Campaign Report PDF
      */
     public byte[] generateCampaignReportPdf(CampaignReportDTO report) throws IOException {
         ByteArrayOutputStream out = new ByteArrayOutputStream();
+        writeCampaignReportPdf(report, out);
+        return out.toByteArray();
+    }
 
-        try (PdfWriter writer = new PdfWriter(out);
+    /**
+     * Stream Campaign Report PDF to the given output
+     */
+    public void writeCampaignReportPdf(CampaignReportDTO report, OutputStream out) throws IOException {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        try (PdfWriter writer = createWriter(out);
              PdfDocument pdfDoc = new PdfDocument(writer);
              Document document = new Document(pdfDoc)) {
 
@@ -77,9 +92,9 @@ public class PdfExportService {
                     .setFontSize(8)
                     .setTextAlignment(TextAlignment.CENTER)
                     .setFontColor(ColorConstants.GRAY));
+        } finally {
+            sample.stop(exportTimer("campaign"));
         }
-
-        return out.toByteArray();
     }
 
     /**
@@ -87,8 +102,24 @@ public class PdfExportService {
      */
     public byte[] generateUserReportPdf(UserReportDTO report) throws IOException {
         ByteArrayOutputStream out = new ByteArrayOutputStream();
+        writeUserReportPdf(report, out);
+        return out.toByteArray();
+    }
 
-        try (PdfWriter writer = new PdfWriter(out);
+    /**
+     * Stream User Report PDF to the given output
+     */
+    public void writeUserReportPdf(UserReportDTO report, OutputStream out) throws IOException {
+        writeUserReportPdf(report, report.getDonationHistory().stream(), out);
+    }
+
+    /**
+     * Stream User Report PDF to the given output, adding the donation history to the table as it
+     * is read (see ReportService.writeUserReport)
+     */
+    public void writeUserReportPdf(UserReportDTO report, Stream<DonationDTO> donationHistory, OutputStream out) throws IOException {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        try (PdfWriter writer = createWriter(out);
              PdfDocument pdfDoc = new PdfDocument(writer);
              Document document = new Document(pdfDoc)) {
 
@@ -109,12 +140,12 @@ public class PdfExportService {
             addUserSummarySection(document, report);
 
             // Add donation history
-            if (report.getDonationHistory() != null && !report.getDonationHistory().isEmpty()) {
+            if (report.getTotalDonations() > 0) {
                 document.add(new Paragraph("\nDONATION HISTORY")
                         .setFontSize(14)
                         .setBold()
                         .setMarginTop(20));
-                addDonationsTable(document, report.getDonationHistory());
+                addDonationsTable(document, donationHistory::iterator);
             }
 
             // Add footer
@@ -122,9 +153,20 @@ public class PdfExportService {
                     .setFontSize(8)
                     .setTextAlignment(TextAlignment.CENTER)
                     .setFontColor(ColorConstants.GRAY));
+        } finally {
+            sample.stop(exportTimer("user"));
         }
+    }
 
-        return out.toByteArray();
+    /**
+     * Render timer for one report type
+     */
+    private Timer exportTimer(String report) {
+        return Timer.builder("export.render")
+                .description("Report export rendering")
+                .tag("format", "pdf")
+                .tag("report", report)
+                .register(meterRegistry);
     }
 
     /**
@@ -143,6 +185,7 @@ public class PdfExportService {
         addSummaryRow(summaryTable, "Raised Amount:", "₹ " + DECIMAL_FORMAT.format(report.getRaisedAmount()));
         addSummaryRow(summaryTable, "Progress:", String.format("%.2f%%", report.getProgressPercentage()));
         addSummaryRow(summaryTable, "Total Donors:", report.getTotalDonors().toString());
+        addSummaryRow(summaryTable, "Total Donations:", report.getTotalDonations().toString());
         addSummaryRow(summaryTable, "Status:", report.getStatus());
         addSummaryRow(summaryTable, "Start Date:", report.getStartDate());
         addSummaryRow(summaryTable, "End Date:", report.getEndDate());
@@ -170,10 +213,12 @@ public class PdfExportService {
 
     /**
      * Add Donations Table
+     * Uses iText's large-table mode: rows are laid out and written every TABLE_FLUSH_ROWS rows
+     * instead of keeping the whole table in memory until the document is closed.
      */
-    private void addDonationsTable(Document document, java.util.List<DonationDTO> donations) {
+    private void addDonationsTable(Document document, Iterable<DonationDTO> donations) {
         // Create table with 6 columns
-        Table table = new Table(UnitValue.createPercentArray(new float[]{10, 20, 25, 15, 20, 10}))
+        Table table = new Table(UnitValue.createPercentArray(new float[]{10, 20, 25, 15, 20, 10}), true)
                 .useAllAvailableWidth()
                 .setMarginTop(10);
 
@@ -185,7 +230,10 @@ public class PdfExportService {
         addHeaderCell(table, "Date");
         addHeaderCell(table, "Status");
 
+        document.add(table);
+
         // Add data rows
+        int rows = 0;
         for (DonationDTO donation : donations) {
             table.addCell(new Cell().add(new Paragraph(donation.getDonationId().toString()).setFontSize(9)));
             table.addCell(new Cell().add(new Paragraph(donation.getUserName()).setFontSize(9)));
@@ -193,9 +241,22 @@ public class PdfExportService {
             table.addCell(new Cell().add(new Paragraph(DECIMAL_FORMAT.format(donation.getAmount())).setFontSize(9)));
             table.addCell(new Cell().add(new Paragraph(donation.getDonationDate().format(DATE_FORMATTER)).setFontSize(9)));
             table.addCell(new Cell().add(new Paragraph(donation.getPaymentStatus()).setFontSize(9)));
+
+            if (++rows % TABLE_FLUSH_ROWS == 0) {
+                table.flush();
+            }
         }
 
-        document.add(table);
+        table.complete();
+    }
+
+    /**
+     * PDF writer that leaves the target stream open (it may be the servlet response)
+     */
+    private PdfWriter createWriter(OutputStream out) {
+        PdfWriter writer = new PdfWriter(out);
+        writer.setCloseStream(false);
+        return writer;
     }
 
     /**
@@ -1,6 +1,8 @@
 package com.microdonation.service;
 
 import com.microdonation.dto.CampaignReportDTO;
+import com.microdonation.dto.CampaignStatsDTO;
+import com.microdonation.dto.CampaignTimeseriesDTO;
 import com.microdonation.dto.DonationDTO;
 import com.microdonation.dto.UserReportDTO;
 import com.microdonation.model.Campaign;
@@ -9,41 +11,57 @@ import com.microdonation.model.User;
 import com.microdonation.repository.CampaignRepository;
 import com.microdonation.repository.DonationRepository;
 import com.microdonation.repository.UserRepository;
+import jakarta.persistence.EntityManager;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.io.IOException;
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 @RequiredArgsConstructor
 @Transactional(readOnly = true)
 public class ReportService {
 
+    private static final int RECENT_DONATIONS_LIMIT = 10;
+    private static final int TOP_DONATIONS_LIMIT = 5;
+    private static final int HISTORY_CLEAR_INTERVAL = 500;
+
     private final CampaignRepository campaignRepository;
     private final UserRepository userRepository;
     private final DonationRepository donationRepository;
+    private final CampaignStatsService campaignStatsService;
+    private final DonationRollupService donationRollupService;
+    private final EntityManager entityManager;
+
+    /**
+     * Renders a user report; the donation history can be read only once, in order
+     */
+    @FunctionalInterface
+    public interface UserReportWriter {
+        void write(UserReportDTO report, Stream<DonationDTO> donationHistory) throws IOException;
+    }
 
     public CampaignReportDTO getCampaignReport(Long campaignId) {
         Campaign campaign = campaignRepository.findById(campaignId)
                 .orElseThrow(() -> new RuntimeException("Campaign not found"));
 
-        List<Donation> donations = donationRepository.findByCampaignCampaignId(campaignId);
-        Long totalDonors = donationRepository.getCountOfDonorsByCampaign(campaignId);
+        CampaignStatsDTO stats = campaignStatsService.getStats(campaignId);
 
-        List<DonationDTO> recentDonations = donations.stream()
-                .filter(d -> "PAID".equals(d.getPaymentStatus()))
-                .sorted((d1, d2) -> d2.getDonationDate().compareTo(d1.getDonationDate()))
-                .limit(10)
+        // Campaign is already in the persistence context, so only the donor needs fetching
+        List<DonationDTO> recentDonations = donationRepository
+                .findRecentPaidByCampaign(campaignId, Limit.of(RECENT_DONATIONS_LIMIT)).stream()
                 .map(this::convertDonationToDTO)
                 .collect(Collectors.toList());
 
-        List<DonationDTO> topDonations = donations.stream()
-                .filter(d -> "PAID".equals(d.getPaymentStatus()))
-                .sorted((d1, d2) -> d2.getAmount().compareTo(d1.getAmount()))
-                .limit(5)
+        List<DonationDTO> topDonations = donationRepository
+                .findTopPaidByCampaign(campaignId, Limit.of(TOP_DONATIONS_LIMIT)).stream()
                 .map(this::convertDonationToDTO)
                 .collect(Collectors.toList());
 
@@ -54,7 +72,10 @@ public class ReportService {
         report.setGoalAmount(campaign.getGoalAmount());
         report.setRaisedAmount(campaign.getRaisedAmount());
         report.setProgressPercentage(campaign.getProgressPercentage());
-        report.setTotalDonors(totalDonors);
+        report.setTotalDonors(stats.getTotalDonors());
+        report.setTotalDonations(stats.getTotalDonations());
+        report.setLargestDonation(stats.getLargestDonation());
+        report.setLastDonationAt(stats.getLastDonationAt());
         report.setStatus(campaign.getStatus());
         report.setStartDate(campaign.getStartDate().toString());
         report.setEndDate(campaign.getEndDate().toString());
@@ -64,6 +85,39 @@ public class ReportService {
         return report;
     }
 
+    /**
+     * Version of the data behind a campaign report; it changes whenever the campaign is edited
+     * or receives a donation
+     */
+    public String getCampaignReportVersion(Long campaignId) {
+        Campaign campaign = campaignRepository.findById(campaignId)
+                .orElseThrow(() -> new RuntimeException("Campaign not found"));
+        CampaignStatsDTO stats = campaignStatsService.getStats(campaignId);
+        return campaign.getVersion() + "-" + campaign.getRaisedAmount().toPlainString() + "-"
+                + stats.getTotalDonations() + "-" + stats.getLastDonationAt();
+    }
+
+    /**
+     * Version of the data behind a user report; it changes whenever the user is edited or donates
+     */
+    public String getUserReportVersion(Long userId) {
+        User user = userRepository.findById(userId)
+                .orElseThrow(() -> new RuntimeException("User not found"));
+        Object[] donations = donationRepository.findDonationCountAndLatestByUser(userId).get(0);
+        return user.getVersion() + "-" + donations[0] + "-" + donations[1] + "-" + donations[2];
+    }
+
+    /**
+     * Donation time series of a campaign, read from the hourly or daily rollups
+     */
+    public CampaignTimeseriesDTO getCampaignTimeseries(Long campaignId, String granularity,
+                                                       LocalDateTime from, LocalDateTime to) {
+        if (!campaignRepository.existsById(campaignId)) {
+            throw new RuntimeException("Campaign not found");
+        }
+        return donationRollupService.getTimeseries(campaignId, granularity, from, to);
+    }
+
     public UserReportDTO getUserReport(Long userId) {
         User user = userRepository.findById(userId)
                 .orElseThrow(() -> new RuntimeException("User not found"));
@@ -91,6 +145,36 @@ public class ReportService {
         return report;
     }
 
+    /**
+     * Render a user report without loading its donation history: the summary comes from aggregates
+     * and the history is read through a database cursor and handed to the writer row by row. The
+     * persistence context is cleared every HISTORY_CLEAR_INTERVAL rows, so it never holds more
+     * than that many donations.
+     */
+    public void writeUserReport(Long userId, UserReportWriter writer) throws IOException {
+        User user = userRepository.findById(userId)
+                .orElseThrow(() -> new RuntimeException("User not found"));
+        Object[] totals = donationRepository.findDonationTotalsByUser(userId).get(0);
+
+        UserReportDTO report = new UserReportDTO();
+        report.setUserId(user.getUserId());
+        report.setName(user.getName());
+        report.setEmail(user.getEmail());
+        report.setTotalDonations(((Number) totals[0]).longValue());
+        report.setTotalDonated((BigDecimal) totals[1]);
+
+        int[] rows = new int[1];
+        try (Stream<Donation> donations = donationRepository.streamHistoryByUser(userId)) {
+            writer.write(report, donations.map(donation -> {
+                DonationDTO dto = convertDonationToDTO(donation);
+                if (++rows[0] % HISTORY_CLEAR_INTERVAL == 0) {
+                    entityManager.clear();
+                }
+                return dto;
+            }));
+        }
+    }
+
     private DonationDTO convertDonationToDTO(Donation donation) {
         DonationDTO dto = new DonationDTO();
         dto.setDonationId(donation.getDonationId());
@@ -0,0 +1,103 @@
+package com.microdonation.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Runs an operation (normally a whole transaction) and retries it when it fails on a
+ * concurrent update: an optimistic version conflict, a lock wait timeout or a deadlock.
+ *
+ * Retries back off exponentially with full jitter, so colliding callers spread out instead
+ * of colliding again. They are also limited by a retry budget shared by all operations:
+ * every call earns budget-ratio of a retry (up to budget-max) and every retry spends one,
+ * so under sustained contention at most that fraction of extra load is added.
+ */
+@Slf4j
+@Component
+public class RetryExecutor {
+
+    private static final long MILLI_TOKENS = 1000;
+
+    private final AtomicLong budget;
+    private final MeterRegistry meterRegistry;
+    private final int maxAttempts;
+    private final long initialBackoffMs;
+    private final long maxBackoffMs;
+    private final long earnedPerCall;
+    private final long budgetMax;
+
+    public RetryExecutor(MeterRegistry meterRegistry,
+                         @Value("${retry.max-attempts:4}") int maxAttempts,
+                         @Value("${retry.initial-backoff-ms:5}") long initialBackoffMs,
+                         @Value("${retry.max-backoff-ms:100}") long maxBackoffMs,
+                         @Value("${retry.budget-ratio:0.2}") double budgetRatio,
+                         @Value("${retry.budget-max:100}") long budgetMax) {
+        this.meterRegistry = meterRegistry;
+        this.maxAttempts = maxAttempts;
+        this.initialBackoffMs = initialBackoffMs;
+        this.maxBackoffMs = maxBackoffMs;
+        this.earnedPerCall = Math.round(budgetRatio * MILLI_TOKENS);
+        this.budgetMax = budgetMax * MILLI_TOKENS;
+        this.budget = new AtomicLong(this.budgetMax);
+        Gauge.builder("retry.budget", budget, b -> (double) b.get() / MILLI_TOKENS)
+                .description("Retries currently available in the retry budget")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Run the operation, retrying it on a ConcurrencyFailureException
+     */
+    public <T> T execute(String operation, Supplier<T> action) {
+        earn();
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return action.get();
+            } catch (ConcurrencyFailureException e) {
+                if (attempt >= maxAttempts) {
+                    meterRegistry.counter("retry.exhausted", "operation", operation, "reason", "attempts").increment();
+                    throw e;
+                }
+                if (!spend()) {
+                    meterRegistry.counter("retry.exhausted", "operation", operation, "reason", "budget").increment();
+                    throw e;
+                }
+                meterRegistry.counter("retry.retries", "operation", operation).increment();
+                log.debug("Retrying {} after concurrent update (attempt {}): {}", operation, attempt, e.getMessage());
+                backOff(operation, attempt);
+            }
+        }
+    }
+
+    private void earn() {
+        budget.getAndUpdate(tokens -> Math.min(budgetMax, tokens + earnedPerCall));
+    }
+
+    private boolean spend() {
+        long tokens;
+        do {
+            tokens = budget.get();
+            if (tokens < MILLI_TOKENS) {
+                return false;
+            }
+        } while (!budget.compareAndSet(tokens, tokens - MILLI_TOKENS));
+        return true;
+    }
+
+    private void backOff(String operation, int attempt) {
+        long ceiling = Math.min(maxBackoffMs, initialBackoffMs << Math.min(attempt - 1, 20));
+        try {
+            Thread.sleep(ThreadLocalRandom.current().nextLong(ceiling + 1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while waiting to retry " + operation, e);
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package com.microdonation.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Time-ordered 64-bit transaction ids, rendered as "TXN" + 13 Crockford base32 characters.
+ *
+ * An id is 41 bits of milliseconds since 2024-01-01 (good until 2093), a 10-bit node id and a
+ * 12-bit sequence. Ids from one node are strictly increasing, and the fixed-width rendering sorts
+ * in the same order, so new rows land at the end of the transaction_id index instead of at random
+ * pages. Instances sharing a database need distinct node ids: TransactionIdNodeLease leases one from
+ * the database at startup, unless transaction-id.node-id pins it. No id is issued without a node.
+ *
+ * Generation is a single compare-and-set on the last (timestamp, sequence) pair and never blocks.
+ * When the 4096 ids of a millisecond are used up the sequence carries into the next millisecond,
+ * borrowing from the future until the clock catches up; a clock that steps backwards is ignored
+ * the same way. A new process starts STARTUP_MARGIN_MS ahead of the clock, so that a clock stepped
+ * back across a restart does not make it reissue ids of its previous run.
+ */
+@Slf4j
+@Component
+public class TransactionIdGenerator {
+
+    public static final String PREFIX = "TXN";
+
+    private static final long EPOCH_MS = Instant.parse("2024-01-01T00:00:00Z").toEpochMilli();
+    private static final int NODE_BITS = 10;
+    private static final int SEQUENCE_BITS = 12;
+    public static final int MAX_NODE = (1 << NODE_BITS) - 1;
+    private static final long STARTUP_MARGIN_MS = 1000;
+
+    private static final long SEQUENCE_MASK = (1L << SEQUENCE_BITS) - 1;
+    private static final char[] ALPHABET = "0123456789ABCDEFGHJKMNPQRSTVWXYZ".toCharArray();
+    private static final int ENCODED_LENGTH = 13; // ceil(64 / 5)
+
+    /** Last issued (milliseconds since EPOCH_MS) << SEQUENCE_BITS | sequence */
+    private final AtomicLong last;
+    private volatile long node; // -1 until a node is assigned
+
+    /**
+     * Generator for the given node; -1 leaves it without a node until setNode()
+     */
+    public TransactionIdGenerator(@Value("${transaction-id.node-id:-1}") int nodeId) {
+        if (nodeId > MAX_NODE) {
+            throw new IllegalArgumentException("transaction-id.node-id must be between 0 and " + MAX_NODE);
+        }
+        this.node = Math.max(nodeId, -1);
+        this.last = new AtomicLong((System.currentTimeMillis() - EPOCH_MS + STARTUP_MARGIN_MS) << SEQUENCE_BITS);
+        if (node >= 0) {
+            log.info("Transaction ids use node id {}", node);
+        }
+    }
+
+    /**
+     * Issue ids on the given node from now on, or none at all with -1
+     */
+    public void setNode(int nodeId) {
+        if (nodeId > MAX_NODE) {
+            throw new IllegalArgumentException("Node id must be between 0 and " + MAX_NODE);
+        }
+        this.node = Math.max(nodeId, -1);
+    }
+
+    /**
+     * Next transaction id, e.g. TXN0D5ZK3Q2A1B7C
+     */
+    public String nextTransactionId() {
+        return PREFIX + encode(nextId());
+    }
+
+    /**
+     * Next id as a number
+     */
+    public long nextId() {
+        long currentNode = node;
+        if (currentNode < 0) {
+            throw new IllegalStateException("No transaction id node is assigned to this instance");
+        }
+        long now = System.currentTimeMillis() - EPOCH_MS;
+        while (true) {
+            long previous = last.get();
+            long next = (previous >>> SEQUENCE_BITS) < now
+                    ? now << SEQUENCE_BITS
+                    : previous + 1; // same or earlier millisecond: next sequence, carrying into the next millisecond
+            if (last.compareAndSet(previous, next)) {
+                return (next >>> SEQUENCE_BITS) << (NODE_BITS + SEQUENCE_BITS)
+                        | currentNode << SEQUENCE_BITS
+                        | next & SEQUENCE_MASK;
+            }
+        }
+    }
+
+    /**
+     * Canonical form of a transaction id typed by a person: upper case, and for generated ids the
+     * Crockford aliases (O for 0, I and L for 1) resolved. Older ids are returned upper-cased.
+     */
+    public static String normalize(String transactionId) {
+        String upper = transactionId.trim().toUpperCase(Locale.ROOT);
+        if (upper.length() != PREFIX.length() + ENCODED_LENGTH || !upper.startsWith(PREFIX)) {
+            return upper;
+        }
+        return PREFIX + upper.substring(PREFIX.length()).replace('O', '0').replace('I', '1').replace('L', '1');
+    }
+
+    private static String encode(long id) {
+        char[] chars = new char[ENCODED_LENGTH];
+        for (int i = ENCODED_LENGTH - 1; i >= 0; i--) {
+            chars[i] = ALPHABET[(int) (id & 31)];
+            id >>>= 5;
+        }
+        return new String(chars);
+    }
+}
@@ -0,0 +1,168 @@
+package com.microdonation.service;
+
+import com.microdonation.repository.TransactionIdNodeRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Leases this instance's transaction id node from the transaction_id_nodes table.
+ *
+ * Unless transaction-id.node-id pins a node, one is leased before the application takes
+ * requests: a node whose lease has expired is taken over, or else the next unused node id is
+ * added. The lease is renewed every lease-renew-ms and given back on shutdown. A lease that
+ * could not be renewed before it expired may already belong to another instance, so the
+ * generator stops issuing ids until a new node is leased.
+ *
+ * Expiry is judged by the instances' clocks, which are assumed to agree to well within
+ * lease-seconds.
+ */
+@Slf4j
+@Component
+public class TransactionIdNodeLease implements SmartInitializingSingleton {
+
+    private static final int LEASE_ATTEMPTS = 5;
+    private static final int CANDIDATES_PER_ATTEMPT = 10;
+
+    private final String instanceId = UUID.randomUUID().toString();
+
+    private final TransactionIdNodeRepository nodeRepository;
+    private final TransactionIdGenerator generator;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean pinned;
+    private final long leaseSeconds;
+
+    private volatile int nodeId = -1;
+    private volatile LocalDateTime expiresAt;
+
+    public TransactionIdNodeLease(TransactionIdNodeRepository nodeRepository,
+                                  TransactionIdGenerator generator,
+                                  PlatformTransactionManager transactionManager,
+                                  @Value("${transaction-id.node-id:-1}") int pinnedNodeId,
+                                  @Value("${transaction-id.lease-seconds:60}") long leaseSeconds,
+                                  @Value("${transaction-id.lease-renew-ms:20000}") long renewIntervalMs) {
+        if (renewIntervalMs >= leaseSeconds * 1000) {
+            throw new IllegalArgumentException("transaction-id.lease-renew-ms must be shorter than transaction-id.lease-seconds");
+        }
+        this.nodeRepository = nodeRepository;
+        this.generator = generator;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.pinned = pinnedNodeId >= 0;
+        this.leaseSeconds = leaseSeconds;
+    }
+
+    /**
+     * Lease a node before the web server starts
+     */
+    @Override
+    public void afterSingletonsInstantiated() {
+        if (!pinned) {
+            lease();
+        }
+    }
+
+    /**
+     * Extend the lease, or lease a new node if it was lost
+     */
+    @Scheduled(fixedDelayString = "${transaction-id.lease-renew-ms:20000}",
+            initialDelayString = "${transaction-id.lease-renew-ms:20000}")
+    public void renew() {
+        if (pinned) {
+            return;
+        }
+        try {
+            if (nodeId < 0) {
+                lease();
+                return;
+            }
+            int node = nodeId;
+            LocalDateTime expiry = LocalDateTime.now().plusSeconds(leaseSeconds);
+            Integer updated = transactionTemplate.execute(status -> nodeRepository.updateExpiry(node, instanceId, expiry));
+            if (updated != null && updated == 1) {
+                expiresAt = expiry;
+                return;
+            }
+            log.error("Lost the lease of transaction id node {}; leasing another one", node);
+            unassign();
+            lease();
+        } catch (RuntimeException e) {
+            log.warn("Failed to renew the transaction id node lease", e);
+            if (nodeId >= 0 && LocalDateTime.now().isAfter(expiresAt)) {
+                log.error("Lease of transaction id node {} expired; no transaction ids until a node is leased", nodeId);
+                unassign();
+            }
+        }
+    }
+
+    /**
+     * Give the node back so another instance can lease it right away
+     */
+    @PreDestroy
+    public void release() {
+        int node = nodeId;
+        if (pinned || node < 0) {
+            return;
+        }
+        unassign();
+        try {
+            transactionTemplate.executeWithoutResult(status ->
+                    nodeRepository.updateExpiry(node, instanceId, LocalDateTime.now()));
+            log.info("Released transaction id node {}", node);
+        } catch (RuntimeException e) {
+            log.warn("Failed to release transaction id node {}; it frees up when its lease expires", node, e);
+        }
+    }
+
+    private void lease() {
+        for (int attempt = 0; attempt < LEASE_ATTEMPTS; attempt++) {
+            LocalDateTime now = LocalDateTime.now();
+            LocalDateTime expiry = now.plusSeconds(leaseSeconds);
+            Integer node = transactionTemplate.execute(status -> claimExpiredNode(now, expiry));
+            if (node == null) {
+                int next = transactionTemplate.execute(status -> nodeRepository.findMaxNodeId().map(max -> max + 1).orElse(0));
+                if (next > TransactionIdGenerator.MAX_NODE) {
+                    throw new IllegalStateException("All " + (TransactionIdGenerator.MAX_NODE + 1) +
+                            " transaction id nodes are leased");
+                }
+                try {
+                    transactionTemplate.executeWithoutResult(status -> nodeRepository.insertNode(next, instanceId, expiry));
+                    node = next;
+                } catch (DataIntegrityViolationException e) {
+                    continue; // another instance added this node first
+                }
+            }
+            nodeId = node;
+            expiresAt = expiry;
+            generator.setNode(node);
+            log.info("Leased transaction id node {} (instance {})", node, instanceId);
+            return;
+        }
+        throw new IllegalStateException("Could not lease a transaction id node in " + LEASE_ATTEMPTS + " attempts");
+    }
+
+    private Integer claimExpiredNode(LocalDateTime now, LocalDateTime expiry) {
+        for (Integer candidate : nodeRepository.findExpiredNodeIds(now, PageRequest.of(0, CANDIDATES_PER_ATTEMPT))) {
+            if (nodeRepository.claimExpired(candidate, instanceId, expiry, now) == 1) {
+                return candidate;
+            }
+        }
+        return null;
+    }
+
+    private void unassign() {
+        nodeId = -1;
+        generator.setNode(-1);
+    }
+}
@@ -1,15 +1,26 @@
 package com.microdonation.service;
 
+import com.microdonation.config.CacheConfig;
 import com.microdonation.dto.UserDTO;
+import com.microdonation.dto.UserPrincipalDTO;
+import com.microdonation.dto.WalletTopUpDTO;
 import com.microdonation.model.User;
 import com.microdonation.repository.UserRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.RequiredArgsConstructor;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.http.HttpStatus;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.math.BigDecimal;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 @Service
@@ -19,6 +30,11 @@ public class UserService {
 
     private final UserRepository userRepository;
     private final PasswordEncoder passwordEncoder;
+    private final WalletService walletService;
+    private final MeterRegistry meterRegistry;
+    private final TransactionTemplate transactionTemplate;
+    private final TransactionIdGenerator transactionIdGenerator;
+    private final IdempotencyService idempotencyService;
 
     public UserDTO registerUser(UserDTO userDTO) {
         // Check if email already exists
@@ -32,30 +48,45 @@ public class UserService {
         user.setContactNo(userDTO.getContactNo());
         user.setPassword(passwordEncoder.encode(userDTO.getPassword()));
         user.setRole(userDTO.getRole() != null ? userDTO.getRole() : "USER");
-        user.setWalletBalance(BigDecimal.ZERO); // Initialize wallet with zero balance
+        user.setWalletBalance(BigDecimal.ZERO); // Legacy column, balances live in the wallet ledger
 
         User savedUser = userRepository.save(user);
-        return convertToDTO(savedUser);
+        walletService.openWallet(savedUser.getUserId()); // Initialize wallet with zero balance
+        return convertToDTO(savedUser, BigDecimal.ZERO);
     }
 
     public List<UserDTO> getAllUsers() {
+        Map<Long, BigDecimal> balances = walletService.getAllBalances();
         return userRepository.findAll().stream()
-                .map(this::convertToDTO)
+                .map(user -> convertToDTO(user, balances.getOrDefault(user.getUserId(), BigDecimal.ZERO)))
                 .collect(Collectors.toList());
     }
 
     public UserDTO getUserById(Long id) {
         User user = userRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("User not found with id: " + id));
-        return convertToDTO(user);
+        return convertToDTO(user, walletService.getBalance(id));
     }
 
     public UserDTO getUserByEmail(String email) {
         User user = userRepository.findByEmail(email)
                 .orElseThrow(() -> new RuntimeException("User not found with email: " + email));
-        return convertToDTO(user);
+        return convertToDTO(user, walletService.getBalance(user.getUserId()));
     }
 
+    /**
+     * Resolve the logged-in user's profile by email, cached until the profile changes
+     */
+    @Cacheable(cacheNames = CacheConfig.PRINCIPALS, key = "#email")
+    @Transactional(readOnly = true)
+    public UserPrincipalDTO getPrincipal(String email) {
+        User user = userRepository.findByEmail(email)
+                .orElseThrow(() -> new RuntimeException("User not found with email: " + email));
+        return new UserPrincipalDTO(user.getUserId(), user.getName(), user.getEmail(),
+                user.getContactNo(), user.getRole());
+    }
+
+    @CacheEvict(cacheNames = CacheConfig.PRINCIPALS, key = "#result.email")
     public UserDTO updateUser(Long id, UserDTO userDTO) {
         User user = userRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("User not found with id: " + id));
@@ -68,13 +99,15 @@ public class UserService {
         }
 
         User updatedUser = userRepository.save(user);
-        return convertToDTO(updatedUser);
+        return convertToDTO(updatedUser, walletService.getBalance(id));
     }
 
+    @CacheEvict(cacheNames = CacheConfig.PRINCIPALS, allEntries = true)
     public void deleteUser(Long id) {
         if (!userRepository.existsById(id)) {
             throw new RuntimeException("User not found with id: " + id);
         }
+        walletService.deleteWallet(id);
         userRepository.deleteById(id);
     }
 
@@ -83,53 +116,65 @@ public class UserService {
     /**
      * Get wallet balance for a user
      */
+    @Transactional(readOnly = true)
     public BigDecimal getWalletBalance(Long userId) {
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new RuntimeException("User not found with id: " + userId));
-        return user.getWalletBalance();
+        return walletService.getBalance(userId);
     }
 
     /**
-     * Add money to user's wallet
+     * Add money to user's wallet, in its own transaction. Credits take no lock, so there is
+     * nothing to retry. The ledger entry references a transaction id of its own.
      */
-    public BigDecimal addMoneyToWallet(Long userId, BigDecimal amount) {
-        if (amount.compareTo(BigDecimal.ZERO) <= 0) {
-            throw new RuntimeException("Amount must be greater than zero");
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public WalletTopUpDTO addMoneyToWallet(Long userId, BigDecimal amount) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "rejected";
+        try {
+            if (amount.compareTo(BigDecimal.ZERO) <= 0) {
+                throw new RuntimeException("Amount must be greater than zero");
+            }
+
+            String transactionId = transactionIdGenerator.nextTransactionId();
+            IdempotencyService.Claim claim = idempotencyService.currentClaim();
+            WalletTopUpDTO topUp = transactionTemplate.execute(status -> {
+                WalletTopUpDTO credited = WalletTopUpDTO.of(userId, amount,
+                        walletService.credit(userId, amount, transactionId));
+                // Completes an Idempotency-Key with the credit, so a retry can never credit twice
+                idempotencyService.completeClaim(claim, HttpStatus.OK, credited);
+                return credited;
+            });
+
+            outcome = "success";
+            meterRegistry.summary("wallet.topup.amount").record(amount.doubleValue());
+            return topUp;
+        } finally {
+            sample.stop(Timer.builder("wallet.topup")
+                    .description("Wallet top-up")
+                    .tag("outcome", outcome)
+                    .register(meterRegistry));
         }
-
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new RuntimeException("User not found with id: " + userId));
-
-        user.addToWallet(amount);
-        userRepository.save(user);
-
-        return user.getWalletBalance();
     }
 
     /**
      * Check if user has sufficient balance
      */
+    @Transactional(readOnly = true)
     public boolean hasSufficientBalance(Long userId, BigDecimal amount) {
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new RuntimeException("User not found with id: " + userId));
-        return user.hasSufficientBalance(amount);
+        return amount != null && walletService.getBalance(userId).compareTo(amount) >= 0;
     }
 
     /**
      * Deduct money from user's wallet (used internally by DonationService)
      */
-    public boolean deductFromWallet(Long userId, BigDecimal amount) {
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new RuntimeException("User not found with id: " + userId));
-
-        boolean success = user.deductFromWallet(amount);
-        if (success) {
-            userRepository.save(user);
+    public boolean deductFromWallet(Long userId, BigDecimal amount, String transactionId) {
+        if (amount == null || amount.compareTo(BigDecimal.ZERO) <= 0) {
+            return false;
         }
-        return success;
+
+        return walletService.debit(userId, amount, transactionId);
     }
 
-    private UserDTO convertToDTO(User user) {
+    private UserDTO convertToDTO(User user, BigDecimal walletBalance) {
         UserDTO dto = new UserDTO();
         dto.setUserId(user.getUserId());
         dto.setName(user.getName());
@@ -137,7 +182,7 @@ public class UserService {
         dto.setContactNo(user.getContactNo());
         dto.setRole(user.getRole());
         dto.setJoinDate(user.getJoinDate());
-        dto.setWalletBalance(user.getWalletBalance()); // Include wallet balance in DTO
+        dto.setWalletBalance(walletBalance); // Include wallet balance in DTO
         return dto;
     }
 }
@@ -0,0 +1,233 @@
+package com.microdonation.service;
+
+import com.microdonation.model.WalletSnapshot;
+import com.microdonation.model.WalletTransaction;
+import com.microdonation.repository.WalletSnapshotRepository;
+import com.microdonation.repository.WalletTransactionRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Wallet balances backed by the append-only wallet_transactions ledger.
+ *
+ * Each write appends one entry; the users row is never updated. A balance is the user's
+ * wallet_snapshots row plus the sum of the (short) tail of entries after it.
+ * snapshotWallets() rolls snapshots forward periodically to keep tails short.
+ *
+ * Debits lock the user's snapshot row and take the next seq, which keeps seq gapless and
+ * makes their balance check safe. Credits need neither: they are inserted without a seq and
+ * without any lock, so top-ups never queue behind each other or behind a debit's lock. The
+ * next snapshot (which holds the lock) gives them seqs. Until then they count towards the
+ * balance as unsequenced entries. A debit that misses a credit committed during its check
+ * can only see less money than there is, never more.
+ */
+@Slf4j
+@Service
+@Transactional
+public class WalletService implements SmartInitializingSingleton {
+
+    private final WalletSnapshotRepository walletSnapshotRepository;
+    private final WalletTransactionRepository walletTransactionRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final long snapshotMinTail;
+
+    public WalletService(WalletSnapshotRepository walletSnapshotRepository,
+                         WalletTransactionRepository walletTransactionRepository,
+                         PlatformTransactionManager transactionManager,
+                         @Value("${wallet.snapshot.min-tail:20}") long snapshotMinTail) {
+        this.walletSnapshotRepository = walletSnapshotRepository;
+        this.walletTransactionRepository = walletTransactionRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.snapshotMinTail = snapshotMinTail;
+    }
+
+    /**
+     * Create the empty wallet of a newly registered user
+     */
+    public void openWallet(Long userId) {
+        walletSnapshotRepository.save(new WalletSnapshot(userId, 0L, BigDecimal.ZERO, LocalDateTime.now()));
+    }
+
+    /**
+     * Open a wallet for every user without one, carrying over the legacy users.wallet_balance
+     */
+    public int openMissingWallets() {
+        List<WalletTransaction> openingEntries = new ArrayList<>();
+        for (Object[] row : walletSnapshotRepository.findUsersWithoutWallet()) {
+            BigDecimal legacyBalance = (BigDecimal) row[1];
+            if (legacyBalance.compareTo(BigDecimal.ZERO) > 0) {
+                openingEntries.add(new WalletTransaction(null, (Long) row[0], 1L,
+                        WalletTransaction.OPENING, legacyBalance, null, null));
+            }
+        }
+        walletTransactionRepository.saveAll(openingEntries);
+        walletTransactionRepository.flush();
+        return walletSnapshotRepository.insertMissing();
+    }
+
+    @Transactional(readOnly = true)
+    public BigDecimal getBalance(Long userId) {
+        return walletSnapshotRepository.findBalance(userId)
+                .orElseThrow(() -> new RuntimeException("User not found with id: " + userId));
+    }
+
+    /**
+     * Current balances of the given users; users without a wallet are left out
+     */
+    @Transactional(readOnly = true)
+    public Map<Long, BigDecimal> getBalances(Collection<Long> userIds) {
+        return toBalanceMap(userIds.isEmpty() ? List.of() : walletSnapshotRepository.findBalances(userIds));
+    }
+
+    @Transactional(readOnly = true)
+    public Map<Long, BigDecimal> getAllBalances() {
+        return toBalanceMap(walletSnapshotRepository.findAllBalances());
+    }
+
+    /**
+     * Append a CREDIT entry, without taking the wallet lock, and return the new balance
+     */
+    public BigDecimal credit(Long userId, BigDecimal amount, String reference) {
+        if (!walletSnapshotRepository.existsById(userId)) {
+            throw new RuntimeException("User not found with id: " + userId);
+        }
+        walletTransactionRepository.save(new WalletTransaction(null, userId, null,
+                WalletTransaction.CREDIT, amount, reference, null));
+        return getBalance(userId);
+    }
+
+    /**
+     * Append a DEBIT entry if the wallet holds at least the given amount.
+     * Returns false (and appends nothing) when the balance is insufficient.
+     */
+    public boolean debit(Long userId, BigDecimal amount, String reference) {
+        WalletSnapshot head = lockWallet(userId);
+        List<WalletTransaction> tail = walletTransactionRepository.findTail(userId, head.getSeq());
+        if (availableBalance(head, tail).compareTo(amount) < 0) {
+            return false;
+        }
+        append(userId, nextSeq(head, tail), WalletTransaction.DEBIT, amount.negate(), reference);
+        return true;
+    }
+
+    /**
+     * Append one DEBIT entry per reference if the wallet holds at least their total.
+     * Returns false (and appends nothing) when the balance is insufficient.
+     */
+    public boolean debitEach(Long userId, Map<String, BigDecimal> amountsByReference) {
+        BigDecimal total = amountsByReference.values().stream().reduce(BigDecimal.ZERO, BigDecimal::add);
+        WalletSnapshot head = lockWallet(userId);
+        List<WalletTransaction> tail = walletTransactionRepository.findTail(userId, head.getSeq());
+        if (availableBalance(head, tail).compareTo(total) < 0) {
+            return false;
+        }
+        long seq = nextSeq(head, tail);
+        for (Map.Entry<String, BigDecimal> entry : amountsByReference.entrySet()) {
+            append(userId, seq++, WalletTransaction.DEBIT, entry.getValue().negate(), entry.getKey());
+        }
+        return true;
+    }
+
+    /**
+     * Remove the wallet and ledger of a deleted user
+     */
+    public void deleteWallet(Long userId) {
+        walletTransactionRepository.deleteByUserId(userId);
+        walletSnapshotRepository.deleteById(userId);
+    }
+
+    /**
+     * Roll the snapshot forward for users with a long tail of entries, one short transaction per user.
+     * Unsequenced credits are given the next seqs and taken into the snapshot.
+     */
+    @Scheduled(fixedDelayString = "${wallet.snapshot.interval-ms:60000}")
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void snapshotWallets() {
+        List<Long> userIds = walletSnapshotRepository.findUserIdsWithTailOf(snapshotMinTail);
+        for (Long userId : userIds) {
+            try {
+                transactionTemplate.executeWithoutResult(status -> {
+                    WalletSnapshot head = lockWallet(userId);
+                    List<WalletTransaction> tail = new ArrayList<>(walletTransactionRepository.findTail(userId, head.getSeq()));
+                    long seq = nextSeq(head, tail);
+                    for (WalletTransaction credit : walletTransactionRepository.findUnsequenced(userId)) {
+                        credit.setSeq(seq++);
+                        tail.add(credit);
+                    }
+                    if (!tail.isEmpty()) {
+                        head.setBalance(balanceOf(head, tail));
+                        head.setSeq(tail.get(tail.size() - 1).getSeq());
+                        head.setTakenAt(LocalDateTime.now());
+                    }
+                });
+            } catch (RuntimeException e) {
+                log.warn("Failed to snapshot wallet of user {}", userId, e);
+            }
+        }
+        if (!userIds.isEmpty()) {
+            log.debug("Snapshotted {} wallets", userIds.size());
+        }
+    }
+
+    /**
+     * Open wallets for users created before the ledger existed
+     */
+    @Override
+    public void afterSingletonsInstantiated() {
+        Integer opened = transactionTemplate.execute(status -> openMissingWallets());
+        if (opened != null && opened > 0) {
+            log.info("Opened {} wallets from users.wallet_balance", opened);
+        }
+    }
+
+    private WalletSnapshot lockWallet(Long userId) {
+        return walletSnapshotRepository.findForUpdate(userId)
+                .orElseThrow(() -> new RuntimeException("User not found with id: " + userId));
+    }
+
+    private void append(Long userId, long seq, String type, BigDecimal amount, String reference) {
+        walletTransactionRepository.save(new WalletTransaction(null, userId, seq, type, amount, reference, null));
+    }
+
+    /**
+     * Balance a debit may draw on: the sequenced balance plus the credits committed so far
+     */
+    private BigDecimal availableBalance(WalletSnapshot head, List<WalletTransaction> tail) {
+        return balanceOf(head, tail).add(walletTransactionRepository.sumUnsequenced(head.getUserId()));
+    }
+
+    private static long nextSeq(WalletSnapshot head, List<WalletTransaction> tail) {
+        return tail.isEmpty() ? head.getSeq() + 1 : tail.get(tail.size() - 1).getSeq() + 1;
+    }
+
+    private static BigDecimal balanceOf(WalletSnapshot head, List<WalletTransaction> tail) {
+        BigDecimal balance = head.getBalance();
+        for (WalletTransaction entry : tail) {
+            balance = balance.add(entry.getAmount());
+        }
+        return balance;
+    }
+
+    private static Map<Long, BigDecimal> toBalanceMap(List<Object[]> rows) {
+        Map<Long, BigDecimal> balances = new HashMap<>();
+        rows.forEach(row -> balances.put((Long) row[0], (BigDecimal) row[1]));
+        return balances;
+    }
+}
@@ -0,0 +1,45 @@
+-- Baseline: the schema the original application created with spring.jpa.hibernate.ddl-auto=update
+-- (users, campaigns and donations). Existing databases are baselined at this version
+-- (spring.flyway.baseline-on-migrate) and only run the later migrations.
+
+CREATE TABLE users (
+    user_id        BIGINT        NOT NULL AUTO_INCREMENT,
+    name           VARCHAR(50)   NOT NULL,
+    email          VARCHAR(100)  NOT NULL,
+    password       VARCHAR(255)  NOT NULL,
+    contact_no     VARCHAR(20),
+    role           VARCHAR(20)   NOT NULL,
+    wallet_balance DECIMAL(10,2) NOT NULL,
+    join_date      DATETIME(6)   NOT NULL,
+    PRIMARY KEY (user_id),
+    CONSTRAINT UK6dotkott2kjsp8vw4d0m25fb7 UNIQUE (email)
+) ENGINE=InnoDB;
+
+CREATE TABLE campaigns (
+    campaign_id   BIGINT        NOT NULL AUTO_INCREMENT,
+    title         VARCHAR(100)  NOT NULL,
+    description   TEXT          NOT NULL,
+    goal_amount   DECIMAL(10,2) NOT NULL,
+    raised_amount DECIMAL(10,2) NOT NULL,
+    start_date    DATE          NOT NULL,
+    end_date      DATE          NOT NULL,
+    status        VARCHAR(20)   NOT NULL,
+    created_by    BIGINT        NOT NULL,
+    created_at    DATETIME(6)   NOT NULL,
+    PRIMARY KEY (campaign_id),
+    CONSTRAINT FKyfby4s4hyhrlmj6j3c63xt6 FOREIGN KEY (created_by) REFERENCES users (user_id)
+) ENGINE=InnoDB;
+
+CREATE TABLE donations (
+    donation_id    BIGINT        NOT NULL AUTO_INCREMENT,
+    user_id        BIGINT        NOT NULL,
+    campaign_id    BIGINT        NOT NULL,
+    amount         DECIMAL(10,2) NOT NULL,
+    donation_date  DATETIME(6)   NOT NULL,
+    payment_status VARCHAR(20)   NOT NULL,
+    payment_mode   VARCHAR(50),
+    transaction_id VARCHAR(100),
+    PRIMARY KEY (donation_id),
+    CONSTRAINT FKd2p196clbvqgbemy05ndspwu FOREIGN KEY (user_id) REFERENCES users (user_id),
+    CONSTRAINT FKr5m6trggwgkgoanlalgea1psh FOREIGN KEY (campaign_id) REFERENCES campaigns (campaign_id)
+) ENGINE=InnoDB;
@@ -0,0 +1,83 @@
+-- Columns and tables added after the baseline: optimistic versions, id sequences, the wallet
+-- ledger, the campaign stats and rollup read models and stored idempotent responses.
+
+ALTER TABLE users ADD COLUMN version BIGINT DEFAULT 0 NOT NULL;
+ALTER TABLE campaigns ADD COLUMN version BIGINT DEFAULT 0 NOT NULL;
+
+-- Donation ids now come from donation_seq (batched inserts) instead of AUTO_INCREMENT
+ALTER TABLE donations MODIFY donation_id BIGINT NOT NULL;
+
+CREATE TABLE campaign_stats (
+    campaign_id      BIGINT        NOT NULL,
+    paid_sum         DECIMAL(10,2) NOT NULL,
+    paid_count       BIGINT        NOT NULL,
+    donor_count      BIGINT        NOT NULL,
+    max_donation     DECIMAL(10,2),
+    last_donation_at DATETIME(6),
+    PRIMARY KEY (campaign_id)
+) ENGINE=InnoDB;
+
+CREATE TABLE donation_rollups (
+    campaign_id  BIGINT        NOT NULL,
+    granularity  VARCHAR(10)   NOT NULL,
+    bucket_start DATETIME(6)   NOT NULL,
+    paid_sum     DECIMAL(10,2) NOT NULL,
+    paid_count   BIGINT        NOT NULL,
+    donor_count  BIGINT        NOT NULL,
+    PRIMARY KEY (campaign_id, granularity, bucket_start)
+) ENGINE=InnoDB;
+
+CREATE TABLE wallet_transactions (
+    entry_id   BIGINT        NOT NULL,
+    user_id    BIGINT        NOT NULL,
+    seq        BIGINT        NOT NULL,
+    entry_type VARCHAR(10)   NOT NULL,
+    amount     DECIMAL(10,2) NOT NULL,
+    reference  VARCHAR(50),
+    created_at DATETIME(6)   NOT NULL,
+    PRIMARY KEY (entry_id),
+    CONSTRAINT uk_wallet_transactions_user_seq UNIQUE (user_id, seq)
+) ENGINE=InnoDB;
+
+CREATE TABLE wallet_snapshots (
+    user_id  BIGINT        NOT NULL,
+    balance  DECIMAL(10,2) NOT NULL,
+    seq      BIGINT        NOT NULL,
+    taken_at DATETIME(6)   NOT NULL,
+    PRIMARY KEY (user_id)
+) ENGINE=InnoDB;
+
+CREATE TABLE idempotency_keys (
+    idempotency_key VARCHAR(100) NOT NULL,
+    fingerprint     VARCHAR(64)  NOT NULL,
+    status_code     INTEGER      NOT NULL,
+    content_type    VARCHAR(100),
+    response_body   MEDIUMTEXT   NOT NULL,
+    created_at      DATETIME(6)  NOT NULL,
+    expires_at      DATETIME(6)  NOT NULL,
+    PRIMARY KEY (idempotency_key)
+) ENGINE=InnoDB;
+
+CREATE INDEX idx_idempotency_keys_expires_at ON idempotency_keys (expires_at);
+
+-- Hibernate emulates the donation and wallet transaction sequences with single-row tables on MySQL;
+-- V3 seeds them above the ids already in use
+CREATE TABLE donation_seq (
+    next_val BIGINT
+) ENGINE=InnoDB;
+
+CREATE TABLE wallet_transaction_seq (
+    next_val BIGINT
+) ENGINE=InnoDB;
+
+-- Campaign stats of the donations made so far; the application keeps them up to date from here on
+INSERT INTO campaign_stats (campaign_id, paid_sum, paid_count, donor_count, max_donation, last_donation_at)
+SELECT c.campaign_id,
+       COALESCE(SUM(d.amount), 0),
+       COUNT(d.donation_id),
+       COUNT(DISTINCT d.user_id),
+       MAX(d.amount),
+       MAX(d.donation_date)
+FROM campaigns c
+LEFT JOIN donations d ON d.campaign_id = c.campaign_id AND d.payment_status = 'PAID'
+GROUP BY c.campaign_id;
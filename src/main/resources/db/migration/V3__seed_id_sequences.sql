@@ -0,0 +1,12 @@
+-- Seed the donation and wallet transaction id sequences above the ids already in use.
+-- Hibernate's pooled optimizer (allocationSize = 50) reads next_val as the top of its next block
+-- and hands out next_val - 49 .. next_val, so next_val must be a full block above the highest id.
+-- A sequence that is already higher (ids reserved by running instances) is left alone.
+
+INSERT INTO donation_seq (next_val) SELECT 1 FROM DUAL WHERE NOT EXISTS (SELECT * FROM donation_seq);
+UPDATE donation_seq
+SET next_val = GREATEST(next_val, (SELECT COALESCE(MAX(donation_id), 0) + 50 FROM donations));
+
+INSERT INTO wallet_transaction_seq (next_val) SELECT 1 FROM DUAL WHERE NOT EXISTS (SELECT * FROM wallet_transaction_seq);
+UPDATE wallet_transaction_seq
+SET next_val = GREATEST(next_val, (SELECT COALESCE(MAX(entry_id), 0) + 50 FROM wallet_transactions));
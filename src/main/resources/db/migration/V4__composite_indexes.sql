@@ -0,0 +1,23 @@
+-- Indexes for the donation and campaign lookups:
+--   donations by campaign (PAID aggregates, recent/top donations, rollup rebuild)
+--   donations by user, newest first
+--   active campaigns, newest first
+-- The single-column indexes MySQL created for the campaign_id and user_id foreign keys
+-- are covered by the new ones and dropped automatically.
+CREATE INDEX idx_donations_campaign_status_date ON donations (campaign_id, payment_status, donation_date);
+CREATE INDEX idx_donations_user_date ON donations (user_id, donation_date);
+CREATE INDEX idx_campaigns_status_created_at ON campaigns (status, created_at);
+
+-- Transaction ids were 32 random bits, so older rows may collide: keep the first donation's
+-- id and suffix the later ones with their donation id before enforcing uniqueness
+UPDATE donations SET transaction_id = CONCAT(transaction_id, '-', donation_id)
+WHERE donation_id IN (
+    SELECT donation_id FROM (
+        SELECT later.donation_id
+        FROM donations later
+        JOIN donations earlier
+          ON earlier.transaction_id = later.transaction_id AND earlier.donation_id < later.donation_id
+    ) duplicates
+);
+
+ALTER TABLE donations ADD CONSTRAINT uk_donations_transaction_id UNIQUE (transaction_id);
@@ -0,0 +1,8 @@
+-- Transaction id node leases: each application instance leases a distinct node id (0-1023)
+-- at startup and renews it while running. Rows are added as nodes are first leased.
+CREATE TABLE transaction_id_nodes (
+    node_id     INTEGER      NOT NULL,
+    instance_id VARCHAR(36)  NOT NULL,
+    expires_at  DATETIME(6)  NOT NULL,
+    PRIMARY KEY (node_id)
+) ENGINE=InnoDB;
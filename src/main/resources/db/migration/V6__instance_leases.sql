@@ -0,0 +1,8 @@
+-- Named leases held by one application instance at a time (e.g. the striped raised amount
+-- counter, which only one instance may run). Rows are added as leases are first taken.
+CREATE TABLE instance_leases (
+    lease_name  VARCHAR(50)  NOT NULL,
+    instance_id VARCHAR(36)  NOT NULL,
+    expires_at  DATETIME(6)  NOT NULL,
+    PRIMARY KEY (lease_name)
+) ENGINE=InnoDB;
@@ -0,0 +1,3 @@
+-- Wallet credits are appended without taking the wallet lock, so they have no seq until the
+-- next snapshot sequences them (several NULLs per user are allowed by the unique key)
+ALTER TABLE wallet_transactions MODIFY seq BIGINT NULL;
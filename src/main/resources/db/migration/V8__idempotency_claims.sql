@@ -0,0 +1,6 @@
+-- Idempotency keys are claimed (IN_PROGRESS) before the request runs and completed in the
+-- transaction of the donation or top-up, so a claim has no response yet
+ALTER TABLE idempotency_keys ADD COLUMN state VARCHAR(12) NOT NULL DEFAULT 'COMPLETED';
+ALTER TABLE idempotency_keys ADD COLUMN owner_token VARCHAR(36);
+ALTER TABLE idempotency_keys MODIFY status_code INTEGER NULL;
+ALTER TABLE idempotency_keys MODIFY response_body MEDIUMTEXT NULL;
@@ -0,0 +1,158 @@
+package com.microdonation.repository;
+
+import org.flywaydb.core.Flyway;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Builds the schema with the Flyway migrations (H2 in MySQL mode), has Hibernate validate the
+ * entities against it, and checks that the list and lookup queries are planned on the indexes
+ * the migrations add. The plans are those of the SQL Hibernate generates for the repository
+ * methods, captured with a StatementInspector. Donations go to a few campaigns only, as in production, so the campaign
+ * key alone is not selective and the planner has to use the composite index to be efficient.
+ */
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:migration;MODE=MySQL;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+        "spring.flyway.enabled=true",
+        "spring.jpa.hibernate.ddl-auto=validate",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.MySQLDialect",
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector=" +
+                "com.microdonation.repository.MigrationQueryPlanTest$CapturingStatementInspector"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("test")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class MigrationQueryPlanTest {
+
+    private static final int USERS = 50;
+    private static final int CAMPAIGNS = 40;
+    private static final int DONATED_CAMPAIGNS = 4;
+    private static final int DONATIONS = 5000;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private Flyway flyway;
+
+    @Autowired
+    private DonationRepository donationRepository;
+
+    @Autowired
+    private CampaignRepository campaignRepository;
+
+    @Autowired
+    private DonationRollupRepository donationRollupRepository;
+
+    // Loaded once, outside the per-test transactions, since ANALYZE commits
+    @BeforeAll
+    void loadData() {
+        LocalDateTime now = LocalDateTime.now();
+        for (int u = 1; u <= USERS; u++) {
+            jdbcTemplate.update("INSERT INTO users (user_id, name, email, password, role, wallet_balance, join_date) " +
+                    "VALUES (?, 'Donor', ?, 'secret', 'USER', 0, ?)", u, "donor" + u + "@test.local", Timestamp.valueOf(now));
+        }
+        for (int c = 1; c <= CAMPAIGNS; c++) {
+            jdbcTemplate.update("INSERT INTO campaigns (campaign_id, title, description, goal_amount, raised_amount, " +
+                            "start_date, end_date, status, created_by, created_at) VALUES (?, 'Campaign', 'Plan test', 1000, 0, ?, ?, ?, 1, ?)",
+                    c, now.toLocalDate(), now.toLocalDate().plusDays(30), c % 10 == 0 ? "ACTIVE" : "COMPLETED",
+                    Timestamp.valueOf(now.plusMinutes(c)));
+        }
+        List<Object[]> donations = new ArrayList<>();
+        for (int d = 1; d <= DONATIONS; d++) {
+            donations.add(new Object[]{d, 1 + d % USERS, 1 + d % DONATED_CAMPAIGNS, Timestamp.valueOf(now.plusSeconds(d)),
+                    d % 10 == 0 ? "FAILED" : "PAID", "TXN" + d});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO donations (donation_id, user_id, campaign_id, amount, donation_date, " +
+                "payment_status, transaction_id) VALUES (?, ?, ?, 5, ?, ?, ?)", donations);
+        jdbcTemplate.execute("ANALYZE");
+    }
+
+    @Test
+    void migrationsAreFullyApplied() {
+        assertThat(flyway.info().pending()).isEmpty();
+    }
+
+    @Test
+    void campaignDonationQueriesUseCampaignStatusDateIndex() {
+        assertThat(plan(() -> donationRepository.findPaidEntriesByCampaign(2L), 2L))
+                .contains("IDX_DONATIONS_CAMPAIGN_STATUS_DATE");
+        assertThat(plan(() -> donationRepository.findRecentPaidByCampaign(2L, Limit.of(10)), 2L, 10))
+                .contains("IDX_DONATIONS_CAMPAIGN_STATUS_DATE");
+    }
+
+    @Test
+    void userDonationPagesUseUserDateIndex() {
+        // Later pages seek on (donation_date, donation_id). The first page only filters on user_id,
+        // which H2 serves from the foreign key index it keeps (MySQL drops it for the composite one)
+        LocalDateTime now = LocalDateTime.now();
+        assertThat(plan(() -> donationRepository.findPageByUserAfter(7L, now, 99999L, PageRequest.ofSize(20)),
+                7L, Timestamp.valueOf(now), 99999L, 21))
+                .contains("IDX_DONATIONS_USER_DATE");
+    }
+
+    @Test
+    void activeCampaignsUseStatusCreatedAtIndex() {
+        LocalDate today = LocalDate.now();
+        assertThat(plan(() -> campaignRepository.findActiveDTOs(today), today))
+                .contains("IDX_CAMPAIGNS_STATUS_CREATED_AT");
+    }
+
+    @Test
+    void transactionIdLookupUsesUniqueIndex() {
+        assertThat(plan(() -> donationRepository.findByTransactionId("TXN42"), "TXN42"))
+                .contains("UK_DONATIONS_TRANSACTION_ID");
+    }
+
+    @Test
+    void rollupRangeUsesPrimaryKey() {
+        LocalDateTime now = LocalDateTime.now();
+        assertThat(plan(() -> donationRollupRepository.findRange(1L, "HOUR", now.minusDays(1), now),
+                1L, "HOUR", Timestamp.valueOf(now.minusDays(1)), Timestamp.valueOf(now)))
+                .contains("PRIMARY_KEY");
+    }
+
+    /**
+     * Run a repository method and explain the statement Hibernate generated for it,
+     * bound to the given parameters (in the order they appear in the SQL)
+     */
+    private String plan(Runnable query, Object... parameters) {
+        CapturingStatementInspector.STATEMENTS.clear();
+        query.run();
+        List<String> statements = List.copyOf(CapturingStatementInspector.STATEMENTS);
+        assertThat(statements).hasSize(1);
+        return jdbcTemplate.queryForObject("EXPLAIN " + statements.get(0), String.class, parameters);
+    }
+
+    /**
+     * Records the SQL of every statement Hibernate prepares
+     */
+    public static class CapturingStatementInspector implements StatementInspector {
+
+        static final List<String> STATEMENTS = new CopyOnWriteArrayList<>();
+
+        @Override
+        public String inspect(String sql) {
+            STATEMENTS.add(sql);
+            return sql;
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package com.microdonation.service;
+
+import com.microdonation.dto.CampaignDTO;
+import com.microdonation.dto.DonationDTO;
+import com.microdonation.dto.UserDTO;
+import jakarta.persistence.EntityManager;
+import org.hibernate.Session;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Exports the report of a user with 5000 donations and checks that the donation history is
+ * streamed: while the PDF or workbook is written, the persistence context never holds more than
+ * one clear interval (500) of donations, plus the donor and the campaign.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE)
+@ActiveProfiles("test")
+class UserReportStreamingTest {
+
+    private static final int DONATIONS = 5000;
+    private static final int MAX_ENTITIES_HELD = 500 + 2;
+    // Above the donation sequence, so the rows never collide with donations made through the services
+    private static final long FIRST_DONATION_ID = 1_000_000L;
+
+    @Autowired
+    private ReportService reportService;
+
+    @Autowired
+    private PdfExportService pdfExportService;
+
+    @Autowired
+    private ExcelExportService excelExportService;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private CampaignService campaignService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    private Long donorId;
+
+    @BeforeEach
+    void createDonationHistory() {
+        UserDTO user = new UserDTO();
+        user.setName("Report donor");
+        user.setEmail("report-" + System.nanoTime() + "@test.local");
+        user.setContactNo("9000000000");
+        user.setPassword("password");
+        donorId = userService.registerUser(user).getUserId();
+
+        CampaignDTO campaign = new CampaignDTO();
+        campaign.setTitle("Report test campaign");
+        campaign.setDescription("Campaign that receives the donations of the report test");
+        campaign.setGoalAmount(new BigDecimal("1000000.00"));
+        campaign.setStartDate(LocalDate.now().minusDays(1));
+        campaign.setEndDate(LocalDate.now().plusDays(30));
+        campaign.setCreatedBy(donorId);
+        Long campaignId = campaignService.createCampaign(campaign).getCampaignId();
+
+        long firstId = FIRST_DONATION_ID + jdbcTemplate.queryForObject("SELECT COUNT(*) FROM donations", Long.class);
+        LocalDateTime now = LocalDateTime.now();
+        List<Object[]> rows = new ArrayList<>();
+        for (int i = 0; i < DONATIONS; i++) {
+            rows.add(new Object[]{firstId + i, donorId, campaignId, Timestamp.valueOf(now.minusSeconds(i)),
+                    "TXN-REPORT-" + donorId + "-" + i});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO donations (donation_id, user_id, campaign_id, amount, donation_date, " +
+                "payment_status, payment_mode, transaction_id) VALUES (?, ?, ?, 5, ?, 'PAID', 'UPI', ?)", rows);
+    }
+
+    @Test
+    void pdfReportStreamsDonationHistory() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        AtomicInteger maxHeld = new AtomicInteger();
+        AtomicInteger written = new AtomicInteger();
+
+        reportService.writeUserReport(donorId, (report, history) -> {
+            assertThat(report.getTotalDonations()).isEqualTo(DONATIONS);
+            assertThat(report.getTotalDonated()).isEqualByComparingTo(new BigDecimal(5 * DONATIONS));
+            pdfExportService.writeUserReportPdf(report, tracked(history, maxHeld, written), out);
+        });
+
+        assertThat(written.get()).isEqualTo(DONATIONS);
+        assertThat(maxHeld.get()).isLessThanOrEqualTo(MAX_ENTITIES_HELD);
+        assertThat(new String(out.toByteArray(), 0, 5)).isEqualTo("%PDF-");
+    }
+
+    @Test
+    void excelReportStreamsDonationHistory() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        AtomicInteger maxHeld = new AtomicInteger();
+        AtomicInteger written = new AtomicInteger();
+
+        reportService.writeUserReport(donorId, (report, history) ->
+                excelExportService.writeUserReportExcel(report, tracked(history, maxHeld, written), out));
+
+        assertThat(written.get()).isEqualTo(DONATIONS);
+        assertThat(maxHeld.get()).isLessThanOrEqualTo(MAX_ENTITIES_HELD);
+        assertThat(out.size()).isPositive();
+    }
+
+    /**
+     * Count the rows handed to the writer and record the most entities managed while doing so
+     */
+    private Stream<DonationDTO> tracked(Stream<DonationDTO> history, AtomicInteger maxHeld, AtomicInteger written) {
+        return history.peek(donation -> {
+            written.incrementAndGet();
+            maxHeld.accumulateAndGet(entityManager.unwrap(Session.class).getStatistics().getEntityCount(), Math::max);
+        });
+    }
+}
@@ -0,0 +1,122 @@
+package com.microdonation.service;
+
+import com.microdonation.dto.CampaignDTO;
+import com.microdonation.dto.DonationDTO;
+import com.microdonation.dto.UserDTO;
+import com.microdonation.repository.CampaignRepository;
+import com.microdonation.repository.DonationRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 200 threads donating from one wallet at the same time, in the default (direct) counter mode.
+ * The wallet covers only 150 of the donations. A donation may also fail once its retries on the
+ * contended campaign row run out, so the test does not expect a fixed number to succeed; it checks
+ * that no more than 150 do and that the wallet balance, donation rows and campaign total agree to
+ * the rupee with the donations that did. The donor must be counted once, however many of its
+ * donations raced.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE)
+@ActiveProfiles("test")
+class WalletDebitConcurrencyTest {
+
+    private static final int THREADS = 200;
+    private static final BigDecimal AMOUNT = new BigDecimal("10.00");
+    private static final BigDecimal TOP_UP = new BigDecimal("1500.00");
+
+    @Autowired
+    private DonationService donationService;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private CampaignService campaignService;
+
+    @Autowired
+    private CampaignStatsService campaignStatsService;
+
+    @Autowired
+    private CampaignRepository campaignRepository;
+
+    @Autowired
+    private DonationRepository donationRepository;
+
+    @Test
+    void concurrentDonationsFromOneWalletNeverOverdraw() throws Exception {
+        Long donorId = registerUser("donor@test.local").getUserId();
+        userService.addMoneyToWallet(donorId, TOP_UP);
+        Long campaignId = createCampaign(registerUser("organiser@test.local").getUserId()).getCampaignId();
+
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Boolean>> outcomes = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            outcomes.add(pool.submit(() -> {
+                start.await();
+                try {
+                    donationService.makeDonation(new DonationDTO(null, donorId, campaignId, AMOUNT,
+                            null, null, "WALLET", null, null, null));
+                    return true;
+                } catch (ConcurrencyFailureException e) {
+                    return false;
+                } catch (RuntimeException e) {
+                    assertThat(e.getMessage()).startsWith("Insufficient wallet balance");
+                    return false;
+                }
+            }));
+        }
+
+        start.countDown();
+        int succeeded = 0;
+        for (Future<Boolean> outcome : outcomes) {
+            if (outcome.get(2, TimeUnit.MINUTES)) {
+                succeeded++;
+            }
+        }
+        pool.shutdown();
+
+        BigDecimal donated = AMOUNT.multiply(BigDecimal.valueOf(succeeded));
+        assertThat(succeeded).isPositive().isLessThanOrEqualTo(TOP_UP.divide(AMOUNT).intValueExact());
+        assertThat(userService.getWalletBalance(donorId)).isEqualByComparingTo(TOP_UP.subtract(donated));
+        assertThat(donationRepository.findByUserUserId(donorId)).hasSize(succeeded);
+        assertThat(campaignRepository.findById(campaignId).orElseThrow().getRaisedAmount())
+                .isEqualByComparingTo(donated);
+        assertThat(campaignStatsService.getStats(campaignId).getTotalDonors()).isEqualTo(1L);
+    }
+
+    private UserDTO registerUser(String email) {
+        UserDTO user = new UserDTO();
+        user.setName("Test " + email);
+        user.setEmail(email);
+        user.setContactNo("9000000000");
+        user.setPassword("password");
+        return userService.registerUser(user);
+    }
+
+    private CampaignDTO createCampaign(Long createdBy) {
+        CampaignDTO campaign = new CampaignDTO();
+        campaign.setTitle("Concurrency test campaign");
+        campaign.setDescription("Campaign that receives every donation of the test");
+        campaign.setGoalAmount(new BigDecimal("1000000.00"));
+        campaign.setStartDate(LocalDate.now().minusDays(1));
+        campaign.setEndDate(LocalDate.now().plusDays(30));
+        campaign.setCreatedBy(createdBy);
+        return campaignService.createCampaign(campaign);
+    }
+}